@@ -0,0 +1,170 @@
+package com.nothomealone.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nothomealone.diagnostics.DiagLevel;
+import com.nothomealone.diagnostics.Diagnostics;
+import com.nothomealone.structure.BlockCompatibility;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Sets up the parts of Minecraft the benchmarks need, without a server or a level.
+ * Registries are bootstrapped once per JVM, and the block and item tags of the vanilla and mod
+ * datapacks on the classpath are bound directly, so tag lookups and the block compatibility
+ * table behave as they do in game.
+ */
+public final class BenchmarkBootstrap {
+    private static final String[] NAMESPACES = {"minecraft", "nothomealone"};
+    private static boolean done = false;
+
+    private BenchmarkBootstrap() {}
+
+    public static synchronized void init() {
+        if (done) {
+            return;
+        }
+        // Keep compile and progress messages out of the measurements
+        Diagnostics.setAllLevels(DiagLevel.WARN);
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        bindTags(BuiltInRegistries.BLOCK, "blocks");
+        bindTags(BuiltInRegistries.ITEM, "items");
+        BlockCompatibility.rebuild();
+        done = true;
+    }
+
+    /**
+     * Loads a structure shipped with the mod, e.g. "builder/builder_level_1".
+     */
+    public static StructureTemplate loadStructure(String path) {
+        String resource = "/data/nothomealone/structures/" + path + ".nbt";
+        try (InputStream in = BenchmarkBootstrap.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Structure not on classpath: " + resource);
+            }
+            CompoundTag nbt = NbtIo.readCompressed(in);
+            StructureTemplate template = new StructureTemplate();
+            template.load(BuiltInRegistries.BLOCK.asLookup(), nbt);
+            return template;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + resource, e);
+        }
+    }
+
+    private static <T> void bindTags(Registry<T> registry, String directory) {
+        Map<ResourceLocation, List<JsonElement>> raw = new HashMap<>();
+        for (String namespace : NAMESPACES) {
+            readTagFiles("data/" + namespace + "/tags/" + directory, namespace, raw);
+        }
+
+        Map<ResourceLocation, List<Holder<T>>> resolved = new HashMap<>();
+        for (ResourceLocation tag : raw.keySet()) {
+            resolve(registry, tag, raw, resolved, new HashSet<>());
+        }
+
+        Map<TagKey<T>, List<Holder<T>>> tags = new HashMap<>();
+        resolved.forEach((tag, holders) -> tags.put(TagKey.create(registry.key(), tag), holders));
+        registry.bindTags(tags);
+    }
+
+    private static <T> List<Holder<T>> resolve(Registry<T> registry, ResourceLocation tag, Map<ResourceLocation, List<JsonElement>> raw,
+                                              Map<ResourceLocation, List<Holder<T>>> resolved, Set<ResourceLocation> visiting) {
+        List<Holder<T>> holders = resolved.get(tag);
+        if (holders != null) {
+            return holders;
+        }
+        if (!visiting.add(tag)) {
+            return List.of();
+        }
+
+        Map<T, Holder<T>> values = new LinkedHashMap<>();
+        for (JsonElement entry : raw.getOrDefault(tag, List.of())) {
+            String id = entry.isJsonObject() ? entry.getAsJsonObject().get("id").getAsString() : entry.getAsString();
+            if (id.startsWith("#")) {
+                for (Holder<T> holder : resolve(registry, new ResourceLocation(id.substring(1)), raw, resolved, visiting)) {
+                    values.putIfAbsent(holder.value(), holder);
+                }
+            } else {
+                // Entries of other mods are optional here
+                registry.getHolder(ResourceKey.create(registry.key(), new ResourceLocation(id)))
+                    .ifPresent(holder -> values.putIfAbsent(holder.value(), holder));
+            }
+        }
+
+        holders = new ArrayList<>(values.values());
+        resolved.put(tag, holders);
+        return holders;
+    }
+
+    private static void readTagFiles(String root, String namespace, Map<ResourceLocation, List<JsonElement>> raw) {
+        try {
+            Enumeration<URL> urls = BenchmarkBootstrap.class.getClassLoader().getResources(root);
+            while (urls.hasMoreElements()) {
+                URI uri = urls.nextElement().toURI();
+                Path rootPath;
+                if (uri.getScheme().equals("jar")) {
+                    try {
+                        rootPath = FileSystems.newFileSystem(uri, Map.of()).getPath(root);
+                    } catch (FileSystemAlreadyExistsException e) {
+                        rootPath = FileSystems.getFileSystem(uri).getPath(root);
+                    }
+                } else {
+                    rootPath = Path.of(uri);
+                }
+                readTagFiles(rootPath, namespace, raw);
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new IllegalStateException("Could not read tags under " + root, e);
+        }
+    }
+
+    private static void readTagFiles(Path rootPath, String namespace, Map<ResourceLocation, List<JsonElement>> raw) throws IOException {
+        try (Stream<Path> files = Files.walk(rootPath)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".json")).toList()) {
+                String name = rootPath.relativize(file).toString().replace('\\', '/');
+                ResourceLocation tag = new ResourceLocation(namespace, name.substring(0, name.length() - ".json".length()));
+                try (Reader reader = Files.newBufferedReader(file)) {
+                    JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+                    List<JsonElement> entries = raw.computeIfAbsent(tag, t -> new ArrayList<>());
+                    if (json.has("replace") && json.get("replace").getAsBoolean()) {
+                        entries.clear();
+                    }
+                    JsonArray values = json.getAsJsonArray("values");
+                    values.forEach(entries::add);
+                }
+            }
+        }
+    }
+}
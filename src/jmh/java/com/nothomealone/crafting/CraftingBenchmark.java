@@ -0,0 +1,80 @@
+package com.nothomealone.crafting;
+
+import com.nothomealone.benchmark.BenchmarkBootstrap;
+import com.nothomealone.inventory.BuilderInventory;
+import net.minecraft.tags.ItemTags;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * The builder's crafting lookups: recipe graph compile, producer and candidate lookups,
+ * and crafting plans (solved from scratch and answered from the memo).
+ * Plans are made without a station, from a builder inventory holding logs of two woods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class CraftingBenchmark {
+    private static final Block[] NEEDED = {
+        Blocks.OAK_PLANKS, Blocks.OAK_FENCE, Blocks.SPRUCE_STAIRS, Blocks.BIRCH_DOOR, Blocks.CRAFTING_TABLE, Blocks.OAK_SLAB
+    };
+
+    private RecipeGraph graph;
+    private BuilderInventory inventory;
+    private CraftingSolver solver;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+        graph = RecipeGraph.get();
+        inventory = new BuilderInventory(27);
+        inventory.add(new ItemStack(Items.OAK_LOG, 32));
+        inventory.add(new ItemStack(Items.SPRUCE_LOG, 16));
+        inventory.add(new ItemStack(Items.STICK, 8));
+        solver = new CraftingSolver();
+    }
+
+    @Benchmark
+    public RecipeGraph compileGraph() {
+        return new RecipeGraph(BuilderRecipes.ALL);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public void candidatesFor(Blackhole blackhole) {
+        for (Block block : NEEDED) {
+            blackhole.consume(graph.candidatesFor(block));
+        }
+    }
+
+    @Benchmark
+    public List<RecipeGraph.Production> producersOfTag() {
+        return graph.producersOf(ItemTags.WOODEN_FENCES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public void planUncached(Blackhole blackhole) {
+        for (Block block : NEEDED) {
+            solver.invalidate();
+            blackhole.consume(solver.plan(block, 8, inventory, null));
+        }
+    }
+
+    @Benchmark
+    public CraftingPlan planMemoized() {
+        return solver.plan(Blocks.OAK_FENCE, 8, inventory, null);
+    }
+}
@@ -0,0 +1,63 @@
+package com.nothomealone.structure;
+
+import com.nothomealone.benchmark.BenchmarkBootstrap;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.level.block.Block;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Block compatibility checks as BuilderEntity.areBlocksCompatible does them (it only delegates
+ * to BlockCompatibility), plus a rebuild of the table as done on every tag reload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class BlockCompatibilityBenchmark {
+    private static final int PAIRS = 1024;
+
+    private Block[] current;
+    private Block[] required;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+
+        // Pairs drawn from the blocks of the shipped structure and the compatible groups
+        List<Block> blocks = BuiltInRegistries.BLOCK.stream()
+            .filter(block -> BlockCompatibility.groupOf(block) != BlockCompatibility.NO_GROUP)
+            .toList();
+        Random random = new Random(42);
+        current = new Block[PAIRS];
+        required = new Block[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            current[i] = blocks.get(random.nextInt(blocks.size()));
+            required[i] = random.nextInt(4) == 0
+                ? BuiltInRegistries.BLOCK.byId(random.nextInt(BuiltInRegistries.BLOCK.size()))
+                : blocks.get(random.nextInt(blocks.size()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void areBlocksCompatible(Blackhole blackhole) {
+        for (int i = 0; i < PAIRS; i++) {
+            blackhole.consume(BlockCompatibility.areCompatible(current[i], required[i]));
+        }
+    }
+
+    @Benchmark
+    public int rebuildTable() {
+        BlockCompatibility.rebuild();
+        return BlockCompatibility.groupCount();
+    }
+}
@@ -0,0 +1,81 @@
+package com.nothomealone.structure;
+
+import com.nothomealone.benchmark.BenchmarkBootstrap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Mirror;
+import net.minecraft.world.level.block.Rotation;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+
+/**
+ * Structure analysis and build task material counting for the shipped builder structures.
+ * analyzeStructureAsync needs a ServerLevel only to load and cache the blueprint, so this measures its
+ * two halves: the (cold) blueprint compile and the (cached) translation into a BuildTask.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class StructureBenchmark {
+    private static final BlockPos STATION = new BlockPos(1024, 64, -2048);
+
+    @Param({"builder_level_1"})
+    public String structure;
+
+    private ResourceLocation location;
+    private StructureTemplate template;
+    private Blueprint blueprint;
+
+    /**
+     * A task restored to half its progress, recreated for every call.
+     */
+    @State(Scope.Thread)
+    public static class HalfBuilt {
+        BuildTask task;
+
+        @Setup(Level.Invocation)
+        public void setup(StructureBenchmark benchmark) {
+            task = benchmark.blueprint.createTask(STATION);
+            task.setCurrentStepIndex(task.getTotalSteps() / 2);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+        location = new ResourceLocation("nothomealone", "builder/" + structure);
+        template = BenchmarkBootstrap.loadStructure("builder/" + structure);
+        blueprint = StructureAnalyzer.compileBlueprint(template, BuiltInRegistries.BLOCK.asLookup(), location, Rotation.NONE, Mirror.NONE);
+    }
+
+    @Benchmark
+    public Blueprint compileBlueprint() {
+        return StructureAnalyzer.compileBlueprint(template, BuiltInRegistries.BLOCK.asLookup(), location, Rotation.CLOCKWISE_90, Mirror.NONE);
+    }
+
+    @Benchmark
+    public BuildTask analyzeStructureCached() {
+        return blueprint.createTask(STATION);
+    }
+
+    @Benchmark
+    public Map<Block, Integer> requiredMaterialsFresh() {
+        return blueprint.createTask(STATION).getRequiredMaterials();
+    }
+
+    @Benchmark
+    public int requiredMaterialsAfterProgress(HalfBuilt state) {
+        // First call after restoring progress builds the counters, the second only reads them
+        return state.task.getRequiredMaterials().size() + state.task.getRequiredMaterials().size();
+    }
+}
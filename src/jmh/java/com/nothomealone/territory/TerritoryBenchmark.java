@@ -0,0 +1,101 @@
+package com.nothomealone.territory;
+
+import net.minecraft.core.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+
+/**
+ * Territory claim checks and nearest station queries against 10 to 10,000 claims.
+ * TerritoryManager.isAreaClaimed, getTerritoryAt and findNearestStation only pick the dimension's index and delegate
+ * to it, so the index is measured directly (no level needed).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class TerritoryBenchmark {
+    private static final int QUERIES = 1024;
+    private static final int TERRITORY_RADIUS = 16;
+    private static final int WORK_RADIUS = 32;
+    // Claims sit on a grid with a gap between neighbours, like stations spread over a world
+    private static final int SPACING = 48;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int claims;
+
+    private TerritoryIndex index;
+    private BlockPos[] queryMin;
+    private BlockPos[] queryMax;
+    private BlockPos[] queryPoints;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        index = new TerritoryIndex();
+        int side = (int) Math.ceil(Math.sqrt(claims));
+        for (int i = 0; i < claims; i++) {
+            BlockPos center = new BlockPos((i % side) * SPACING, 64, (i / side) * SPACING);
+            index.add(claim(center));
+        }
+
+        // Half the queries land on the claimed grid, half next to it
+        Random random = new Random(42);
+        int extent = side * SPACING;
+        queryMin = new BlockPos[QUERIES];
+        queryMax = new BlockPos[QUERIES];
+        queryPoints = new BlockPos[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int x = random.nextInt(extent * 2) - extent / 2;
+            int z = random.nextInt(extent * 2) - extent / 2;
+            BlockPos center = new BlockPos(x, 64, z);
+            queryMin[i] = center.offset(-TERRITORY_RADIUS, -TERRITORY_RADIUS, -TERRITORY_RADIUS);
+            queryMax[i] = center.offset(TERRITORY_RADIUS, TERRITORY_RADIUS, TERRITORY_RADIUS);
+            queryPoints[i] = center;
+        }
+    }
+
+    private static Territory claim(BlockPos center) {
+        return new Territory("minecraft:overworld", center,
+            center.offset(-TERRITORY_RADIUS, -TERRITORY_RADIUS, -TERRITORY_RADIUS),
+            center.offset(TERRITORY_RADIUS, TERRITORY_RADIUS, TERRITORY_RADIUS),
+            TERRITORY_RADIUS, WORK_RADIUS, "builder");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void isAreaClaimed(Blackhole blackhole) {
+        for (int i = 0; i < QUERIES; i++) {
+            blackhole.consume(index.overlaps(queryMin[i], queryMax[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void getTerritoryAt(Blackhole blackhole) {
+        for (int i = 0; i < QUERIES; i++) {
+            blackhole.consume(index.getAt(queryPoints[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void findNearestStation(Blackhole blackhole) {
+        for (int i = 0; i < QUERIES; i++) {
+            blackhole.consume(index.stations("builder").findNearest(queryPoints[i], 256));
+        }
+    }
+
+    @Benchmark
+    public void claimAndRelease() {
+        BlockPos center = new BlockPos(-SPACING * 4, 64, -SPACING * 4);
+        index.add(claim(center));
+        index.remove(center);
+    }
+}
@@ -0,0 +1,68 @@
+package com.nothomealone;
+
+import net.minecraftforge.common.ForgeConfigSpec;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.config.ModConfigEvent;
+
+/**
+ * Server config of the mod (serverconfig/nothomealone-server.toml in the world folder).
+ * Values are copied into static fields whenever the config is loaded or changed, so hot paths
+ * read a plain field instead of going through the config spec.
+ */
+@Mod.EventBusSubscriber(modid = NotHomeAlone.MOD_ID, bus = Mod.EventBusSubscriber.Bus.MOD)
+public class Config {
+    private static final ForgeConfigSpec.Builder BUILDER = new ForgeConfigSpec.Builder();
+
+    static {
+        BUILDER.comment("Build rate of builder NPCs. The defaults place one block every 10 ticks.").push("builder");
+    }
+
+    private static final ForgeConfigSpec.IntValue BLOCKS_PER_TICK = BUILDER
+        .comment("Most build steps a builder places or clears in one work cycle. Steps are only done in one",
+                 "cycle while they are all within reach of the builder; each still uses materials and tools.")
+        .defineInRange("blocksPerTick", 1, 1, 64);
+
+    private static final ForgeConfigSpec.IntValue PLACE_COOLDOWN = BUILDER
+        .comment("Ticks to wait after a work cycle that placed blocks")
+        .defineInRange("placeCooldown", 10, 0, 200);
+
+    private static final ForgeConfigSpec.IntValue CLEAR_COOLDOWN = BUILDER
+        .comment("Ticks to wait after a work cycle that only cleared obstacles")
+        .defineInRange("clearCooldown", 5, 0, 200);
+
+    private static final ForgeConfigSpec.IntValue REACH = BUILDER
+        .comment("How far (in blocks) from its position a builder can place or clear a block")
+        .defineInRange("reach", 5, 2, 16);
+
+    static {
+        BUILDER.pop();
+    }
+
+    static final ForgeConfigSpec SPEC = BUILDER.build();
+
+    public static int builderBlocksPerTick = 1;
+    public static int builderPlaceCooldown = 10;
+    public static int builderClearCooldown = 5;
+    public static int builderReach = 5;
+
+    @SubscribeEvent
+    public static void onLoad(ModConfigEvent.Loading event) {
+        bake(event);
+    }
+
+    @SubscribeEvent
+    public static void onReload(ModConfigEvent.Reloading event) {
+        bake(event);
+    }
+
+    private static void bake(ModConfigEvent event) {
+        if (event.getConfig().getSpec() != SPEC) {
+            return;
+        }
+        builderBlocksPerTick = BLOCKS_PER_TICK.get();
+        builderPlaceCooldown = PLACE_COOLDOWN.get();
+        builderClearCooldown = CLEAR_COOLDOWN.get();
+        builderReach = REACH.get();
+    }
+}
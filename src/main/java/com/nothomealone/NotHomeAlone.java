@@ -14,7 +14,9 @@ import net.minecraftforge.event.entity.EntityAttributeCreationEvent;
 import net.minecraftforge.event.server.ServerStartingEvent;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.config.ModConfig;
 import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
@@ -35,6 +37,8 @@ public class NotHomeAlone {
         ModBlockEntities.register(modEventBus);
         com.nothomealone.item.ModCreativeTabs.register(modEventBus);
 
+        ModLoadingContext.get().registerConfig(ModConfig.Type.SERVER, Config.SPEC);
+
         modEventBus.addListener(this::commonSetup);
         modEventBus.addListener(this::entityAttributeCreation);
 
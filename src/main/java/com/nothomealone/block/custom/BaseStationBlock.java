@@ -1,6 +1,8 @@
 package com.nothomealone.block.custom;
 
 import com.nothomealone.block.entity.StationBlockEntity;
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.NonNullList;
 import net.minecraft.server.level.ServerLevel;
@@ -147,7 +149,7 @@ public abstract class BaseStationBlock extends BaseEntityBlock {
                     }
                 }
                 
-                System.out.println("[BaseStationBlock] Loaded " + ingredientCounts.size() + " different items (materials + tools) into station inventory");
+                Diagnostics.debug(DiagCategory.INVENTORY, null, () -> "Loaded " + ingredientCounts.size() + " different items (materials + tools) into station inventory");
                 break;
             }
         }
@@ -1,9 +1,18 @@
 package com.nothomealone.block.entity;
 
+import com.nothomealone.inventory.BulkContainer;
+import com.nothomealone.inventory.ItemCountIndex;
+import com.nothomealone.structure.StructureDamageTracker;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.NonNullList;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.tags.TagKey;
 import net.minecraft.world.Container;
 import net.minecraft.world.ContainerHelper;
 import net.minecraft.world.MenuProvider;
@@ -12,18 +21,24 @@ import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.inventory.AbstractContainerMenu;
 import net.minecraft.world.inventory.ChestMenu;
 import net.minecraft.world.inventory.MenuType;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * BlockEntity for worker stations.
  * Stores territory information, upgrade status, NPC reference, and crafting materials.
  */
-public class StationBlockEntity extends BlockEntity implements Container, MenuProvider {
+public class StationBlockEntity extends BlockEntity implements BulkContainer, MenuProvider {
     private BlockPos territoryMin;
     private BlockPos territoryMax;
     private int territoryRadius;
@@ -31,11 +46,21 @@ public class StationBlockEntity extends BlockEntity implements Container, MenuPr
     private int workerEntityId = -1; // Legacy, use workerUUID instead
     private UUID workerUUID = null;
     private boolean structureBuilt = false;
+    // Structure the builder of this station builds (and repairs once it is built)
+    private ResourceLocation structureId = null;
+    // Station level whose structure is fully built (0 = none yet); an upgrade builds from this level
+    private int builtLevel = 0;
     
     // Stores the crafting materials used to create this station
     // Builder can extract these materials when building the structure
     // Size 54 = double chest (6 rows x 9 columns)
     private NonNullList<ItemStack> craftingMaterials = NonNullList.withSize(54, ItemStack.EMPTY);
+    // Bumped whenever the contents may have changed, so builders can cache what they derived from them
+    private int contentVersion = 0;
+    // Item counts and slots of craftingMaterials, so lookups do not scan the container
+    private ItemCountIndex index = new ItemCountIndex(craftingMaterials.size());
+    // Set when a stack may have been changed in place (menus call setChanged after that); the index is re-synced on next use
+    private boolean indexDirty = false;
 
     public StationBlockEntity(BlockPos pos, BlockState state) {
         super(ModBlockEntities.STATION_BLOCK_ENTITY.get(), pos, state);
@@ -58,6 +83,10 @@ public class StationBlockEntity extends BlockEntity implements Container, MenuPr
             tag.putUUID("WorkerUUID", workerUUID);
         }
         tag.putBoolean("StructureBuilt", structureBuilt);
+        if (structureId != null) {
+            tag.putString("StructureId", structureId.toString());
+        }
+        tag.putInt("BuiltLevel", builtLevel);
         ContainerHelper.saveAllItems(tag, craftingMaterials);
     }
 
@@ -78,7 +107,12 @@ public class StationBlockEntity extends BlockEntity implements Container, MenuPr
             workerUUID = tag.getUUID("WorkerUUID");
         }
         structureBuilt = tag.getBoolean("StructureBuilt");
+        structureId = tag.contains("StructureId") ? ResourceLocation.tryParse(tag.getString("StructureId")) : null;
+        // Stations from before levels were saved were built at level 1
+        builtLevel = tag.contains("BuiltLevel") ? tag.getInt("BuiltLevel") : (structureBuilt ? 1 : 0);
         ContainerHelper.loadAllItems(tag, craftingMaterials);
+        index.sync(craftingMaterials);
+        contentVersion++;
     }
 
     public void setTerritory(BlockPos min, BlockPos max, int territoryRadius, int workRadius) {
@@ -86,7 +120,7 @@ public class StationBlockEntity extends BlockEntity implements Container, MenuPr
         this.territoryMax = max;
         this.territoryRadius = territoryRadius;
         this.workRadius = workRadius;
-        setChanged();
+        markDataChanged();
     }
 
     public BlockPos getTerritoryMin() {
@@ -99,7 +133,7 @@ public class StationBlockEntity extends BlockEntity implements Container, MenuPr
 
     public void setWorkerEntityId(int entityId) {
         this.workerEntityId = entityId;
-        setChanged();
+        markDataChanged();
     }
 
     public int getWorkerEntityId() {
@@ -108,7 +142,7 @@ public class StationBlockEntity extends BlockEntity implements Container, MenuPr
 
     public void setWorkerUUID(UUID uuid) {
         this.workerUUID = uuid;
-        setChanged();
+        markDataChanged();
     }
 
     public UUID getWorkerUUID() {
@@ -117,13 +151,59 @@ public class StationBlockEntity extends BlockEntity implements Container, MenuPr
 
     public void setStructureBuilt(boolean built) {
         this.structureBuilt = built;
-        setChanged();
+        markDataChanged();
+        updateDamageTracking();
     }
 
     public boolean isStructureBuilt() {
         return structureBuilt;
     }
 
+    public void setStructureId(@Nullable ResourceLocation structureId) {
+        this.structureId = structureId;
+        markDataChanged();
+    }
+
+    @Nullable
+    public ResourceLocation getStructureId() {
+        return structureId;
+    }
+
+    public void setBuiltLevel(int builtLevel) {
+        this.builtLevel = builtLevel;
+        markDataChanged();
+    }
+
+    public int getBuiltLevel() {
+        return builtLevel;
+    }
+
+    @Override
+    public void onLoad() {
+        super.onLoad();
+        updateDamageTracking();
+    }
+
+    @Override
+    public void setRemoved() {
+        super.setRemoved();
+        if (level instanceof ServerLevel serverLevel) {
+            StructureDamageTracker.untrack(serverLevel, worldPosition);
+        }
+    }
+
+    /**
+     * Watches the finished structure for damage, or stops watching it.
+     */
+    private void updateDamageTracking() {
+        if (!(level instanceof ServerLevel serverLevel)) return;
+        if (structureBuilt && structureId != null) {
+            StructureDamageTracker.track(serverLevel, worldPosition, structureId);
+        } else {
+            StructureDamageTracker.untrack(serverLevel, worldPosition);
+        }
+    }
+
     public int getTerritoryRadius() {
         return territoryRadius;
     }
@@ -135,32 +215,137 @@ public class StationBlockEntity extends BlockEntity implements Container, MenuPr
     /**
      * Gets the crafting materials stored in this station.
      * Builder can use these materials to construct the station structure.
+     * The list is read-only for callers; changes go through the Container methods.
      */
     public NonNullList<ItemStack> getCraftingMaterials() {
         return craftingMaterials;
     }
 
+    /**
+     * Gets a counter that changes whenever the contents may have changed.
+     */
+    public int getContentVersion() {
+        return contentVersion;
+    }
+
     /**
      * Sets the crafting materials for this station.
      * Called when the station is crafted and placed.
      */
     public void setCraftingMaterials(NonNullList<ItemStack> materials) {
         this.craftingMaterials = materials;
-        setChanged();
+        this.index = new ItemCountIndex(materials.size());
+        index.sync(materials);
+        markContentsChanged();
+    }
+
+    private ItemCountIndex index() {
+        if (indexDirty) {
+            index.sync(craftingMaterials);
+            indexDirty = false;
+        }
+        return index;
     }
 
     /**
-     * Checks if the builder has already extracted materials.
+     * Counts an Item or an item TagKey in the station.
      */
-    public boolean hasMaterials() {
-        for (ItemStack stack : craftingMaterials) {
-            if (!stack.isEmpty()) {
-                return true;
+    public int count(Object itemOrTag) {
+        return index().count(itemOrTag);
+    }
+
+    /**
+     * Counts the block items usable for the given block (exact or compatible).
+     */
+    public int countCompatible(Block block) {
+        return index().countCompatible(block);
+    }
+
+    /**
+     * Gets the first slot holding the item, or -1.
+     */
+    public int firstSlot(Item item) {
+        return index().firstSlot(item);
+    }
+
+    /**
+     * Gets the distinct items stored in the station (read-only view).
+     */
+    public Set<Item> getStoredItems() {
+        return index().items();
+    }
+
+    @Override
+    public ItemStack peekItem(int slot) {
+        return craftingMaterials.get(slot);
+    }
+
+    /**
+     * Gets the slots holding items that match an Item or item TagKey, per item in slot order.
+     * Only the slots holding matching items are visited.
+     */
+    public IntList slotsOf(Object itemOrTag) {
+        if (itemOrTag instanceof Item item) {
+            return slotsOf(List.of(item));
+        }
+        ItemCountIndex idx = index();
+        if (idx.count(itemOrTag) <= 0) {
+            return new IntArrayList();
+        }
+
+        List<Item> matching = new ArrayList<>();
+        for (Item item : idx.items()) {
+            if (item.builtInRegistryHolder().is(asItemTag(itemOrTag))) {
+                matching.add(item);
+            }
+        }
+        return slotsOf(matching);
+    }
+
+    /**
+     * Gets the slots holding any of the given items.
+     */
+    public IntList slotsOf(Collection<Item> items) {
+        IntList slots = new IntArrayList();
+        ItemCountIndex idx = index();
+        for (Item item : items) {
+            for (int slot = idx.firstSlot(item); slot != -1; slot = idx.nextSlot(item, slot + 1)) {
+                slots.add(slot);
+            }
+        }
+        return slots;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TagKey<Item> asItemTag(Object tag) {
+        return (TagKey<Item>) tag;
+    }
+
+    /**
+     * Checks if the station holds a damageable tool that is not worn (at least 20% durability left).
+     * Only the slots of damageable items are visited.
+     */
+    public boolean hasUsableTool() {
+        ItemCountIndex idx = index();
+        for (Item item : idx.items()) {
+            if (!item.canBeDepleted()) continue;
+            for (int slot = idx.firstSlot(item); slot != -1; slot = idx.nextSlot(item, slot + 1)) {
+                ItemStack stack = craftingMaterials.get(slot);
+                if (stack.getDamageValue() < stack.getMaxDamage() * 0.8) {
+                    return true;
+                }
             }
         }
         return false;
     }
 
+    /**
+     * Checks if the builder has already extracted materials.
+     */
+    public boolean hasMaterials() {
+        return !index().items().isEmpty();
+    }
+
     /**
      * Clears all crafting materials (called after builder uses them).
      */
@@ -169,7 +354,8 @@ public class StationBlockEntity extends BlockEntity implements Container, MenuPr
         for (int i = 0; i < craftingMaterials.size(); i++) {
             craftingMaterials.set(i, ItemStack.EMPTY);
         }
-        setChanged();
+        index.sync(craftingMaterials);
+        markContentsChanged();
     }
 
     // Container implementation
@@ -192,14 +378,18 @@ public class StationBlockEntity extends BlockEntity implements Container, MenuPr
     public ItemStack removeItem(int slot, int amount) {
         ItemStack result = ContainerHelper.removeItem(craftingMaterials, slot, amount);
         if (!result.isEmpty()) {
-            setChanged();
+            index.update(slot, craftingMaterials.get(slot));
+            markContentsChanged();
         }
         return result;
     }
 
     @Override
     public ItemStack removeItemNoUpdate(int slot) {
-        return ContainerHelper.takeItem(craftingMaterials, slot);
+        contentVersion++;
+        ItemStack result = ContainerHelper.takeItem(craftingMaterials, slot);
+        index.update(slot, ItemStack.EMPTY);
+        return result;
     }
 
     @Override
@@ -208,7 +398,21 @@ public class StationBlockEntity extends BlockEntity implements Container, MenuPr
         if (stack.getCount() > getMaxStackSize()) {
             stack.setCount(getMaxStackSize());
         }
-        setChanged();
+        index.update(slot, stack);
+        markContentsChanged();
+    }
+
+    @Override
+    public void setItems(Int2ObjectMap<ItemStack> stacks) {
+        for (Int2ObjectMap.Entry<ItemStack> entry : stacks.int2ObjectEntrySet()) {
+            ItemStack stack = entry.getValue();
+            if (stack.getCount() > getMaxStackSize()) {
+                stack.setCount(getMaxStackSize());
+            }
+            craftingMaterials.set(entry.getIntKey(), stack);
+            index.update(entry.getIntKey(), stack);
+        }
+        markContentsChanged();
     }
 
     @Override
@@ -219,6 +423,31 @@ public class StationBlockEntity extends BlockEntity implements Container, MenuPr
     @Override
     public void clearContent() {
         craftingMaterials.clear();
+        index.sync(craftingMaterials);
+        contentVersion++;
+    }
+
+    @Override
+    public void setChanged() {
+        // Containers call this after changing a stack in place
+        indexDirty = true;
+        markContentsChanged();
+    }
+
+    /**
+     * Marks the block entity to be saved after a change that does not touch the inventory,
+     * so the index and the content version stay as they are.
+     */
+    private void markDataChanged() {
+        super.setChanged();
+    }
+
+    /**
+     * Marks the block entity changed after a change the index already knows about.
+     */
+    private void markContentsChanged() {
+        contentVersion++;
+        super.setChanged();
     }
 
     // MenuProvider implementation
@@ -0,0 +1,41 @@
+package com.nothomealone.crafting;
+
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.Item;
+
+import java.util.List;
+
+/**
+ * Simple crafting recipe the builder can use without a crafting table.
+ * Inputs and output are an Item or an item TagKey; a tag output means any item of the tag can be made.
+ */
+public record BuilderRecipe(List<Input> inputs, Object output, int outputCount) {
+
+    /**
+     * One recipe input: an Item or an item TagKey, and how many are used per craft.
+     */
+    public record Input(Object itemOrTag, int count) {}
+
+    // Recipe with one input
+    public static BuilderRecipe of(Object input, int inputCount, Object output, int outputCount) {
+        return new BuilderRecipe(List.of(new Input(input, inputCount)), output, outputCount);
+    }
+
+    // Recipe with two inputs
+    public static BuilderRecipe of(Object input1, int input1Count, Object input2, int input2Count, Object output, int outputCount) {
+        return new BuilderRecipe(List.of(new Input(input1, input1Count), new Input(input2, input2Count)), output, outputCount);
+    }
+
+    /**
+     * Checks if an item matches an Item or item TagKey.
+     */
+    @SuppressWarnings("unchecked")
+    public static boolean matches(Item item, Object itemOrTag) {
+        if (itemOrTag instanceof Item other) {
+            return item == other;
+        } else if (itemOrTag instanceof TagKey<?> tag) {
+            return item.builtInRegistryHolder().is((TagKey<Item>) tag);
+        }
+        return false;
+    }
+}
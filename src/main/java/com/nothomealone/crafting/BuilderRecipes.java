@@ -0,0 +1,123 @@
+package com.nothomealone.crafting;
+
+import net.minecraft.tags.ItemTags;
+import net.minecraft.world.item.Items;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The recipes known to the builder.
+ */
+public class BuilderRecipes {
+    public static final List<BuilderRecipe> ALL;
+
+    static {
+        List<BuilderRecipe> recipes = new ArrayList<>();
+
+        // === WOOD RECIPES ===
+        // Logs to Planks (1 log → 4 planks)
+        recipes.add(BuilderRecipe.of(ItemTags.LOGS, 1, ItemTags.PLANKS, 4));
+        // Planks to Sticks (2 planks → 4 sticks)
+        recipes.add(BuilderRecipe.of(ItemTags.PLANKS, 2, Items.STICK, 4));
+        // Planks to Stairs (6 planks → 4 stairs)
+        recipes.add(BuilderRecipe.of(ItemTags.PLANKS, 6, ItemTags.WOODEN_STAIRS, 4));
+        // Planks to Slabs (3 planks → 6 slabs)
+        recipes.add(BuilderRecipe.of(ItemTags.PLANKS, 3, ItemTags.WOODEN_SLABS, 6));
+        // Planks to Doors (6 planks → 3 doors)
+        recipes.add(BuilderRecipe.of(ItemTags.PLANKS, 6, ItemTags.WOODEN_DOORS, 3));
+        // Planks to Trapdoors (6 planks → 2 trapdoors)
+        recipes.add(BuilderRecipe.of(ItemTags.PLANKS, 6, ItemTags.WOODEN_TRAPDOORS, 2));
+        // Planks to Pressure Plate (2 planks → 1 plate)
+        recipes.add(BuilderRecipe.of(ItemTags.PLANKS, 2, ItemTags.WOODEN_PRESSURE_PLATES, 1));
+        // Planks to Button (1 plank → 1 button)
+        recipes.add(BuilderRecipe.of(ItemTags.PLANKS, 1, ItemTags.WOODEN_BUTTONS, 1));
+        // Planks to Crafting Table (4 planks → 1 table)
+        recipes.add(BuilderRecipe.of(ItemTags.PLANKS, 4, Items.CRAFTING_TABLE, 1));
+        // Planks to Chest (8 planks → 1 chest)
+        recipes.add(BuilderRecipe.of(ItemTags.PLANKS, 8, Items.CHEST, 1));
+        // Sticks + Planks to Fence (2 sticks + 4 planks → 3 fence)
+        recipes.add(BuilderRecipe.of(Items.STICK, 2, ItemTags.PLANKS, 4, ItemTags.WOODEN_FENCES, 3));
+        // Sticks + Planks to Fence Gate (4 sticks + 2 planks → 1 gate)
+        recipes.add(BuilderRecipe.of(Items.STICK, 4, ItemTags.PLANKS, 2, ItemTags.FENCE_GATES, 1));
+        // Planks + Stick to Sign (6 planks + 1 stick → 3 signs)
+        recipes.add(BuilderRecipe.of(ItemTags.PLANKS, 6, Items.STICK, 1, ItemTags.SIGNS, 3));
+        // Planks + Stick to Ladder (7 sticks → 3 ladders)
+        recipes.add(BuilderRecipe.of(Items.STICK, 7, Items.LADDER, 3));
+
+        // === STONE RECIPES ===
+        // Cobblestone to Stairs (6 cobble → 4 stairs)
+        recipes.add(BuilderRecipe.of(Items.COBBLESTONE, 6, Items.COBBLESTONE_STAIRS, 4));
+        // Cobblestone to Slabs (3 cobble → 6 slabs)
+        recipes.add(BuilderRecipe.of(Items.COBBLESTONE, 3, Items.COBBLESTONE_SLAB, 6));
+        // Cobblestone to Wall (6 cobble → 6 walls)
+        recipes.add(BuilderRecipe.of(Items.COBBLESTONE, 6, Items.COBBLESTONE_WALL, 6));
+        // Cobblestone to Furnace (8 cobble → 1 furnace)
+        recipes.add(BuilderRecipe.of(Items.COBBLESTONE, 8, Items.FURNACE, 1));
+        // Cobblestone + Stick to Lever (1 cobble + 1 stick → 1 lever)
+        recipes.add(BuilderRecipe.of(Items.COBBLESTONE, 1, Items.STICK, 1, Items.LEVER, 1));
+
+        // Stone variants
+        recipes.add(BuilderRecipe.of(Items.STONE, 6, Items.STONE_STAIRS, 4));
+        recipes.add(BuilderRecipe.of(Items.STONE, 3, Items.STONE_SLAB, 6));
+        recipes.add(BuilderRecipe.of(Items.STONE, 2, Items.STONE_PRESSURE_PLATE, 1));
+        recipes.add(BuilderRecipe.of(Items.STONE, 1, Items.STONE_BUTTON, 1));
+
+        // Stone Bricks
+        recipes.add(BuilderRecipe.of(Items.STONE, 4, Items.STONE_BRICKS, 4));
+        recipes.add(BuilderRecipe.of(Items.STONE_BRICKS, 6, Items.STONE_BRICK_STAIRS, 4));
+        recipes.add(BuilderRecipe.of(Items.STONE_BRICKS, 3, Items.STONE_BRICK_SLAB, 6));
+        recipes.add(BuilderRecipe.of(Items.STONE_BRICKS, 6, Items.STONE_BRICK_WALL, 6));
+
+        // Sandstone
+        recipes.add(BuilderRecipe.of(Items.SAND, 4, Items.SANDSTONE, 1));
+        recipes.add(BuilderRecipe.of(Items.SANDSTONE, 6, Items.SANDSTONE_STAIRS, 4));
+        recipes.add(BuilderRecipe.of(Items.SANDSTONE, 3, Items.SANDSTONE_SLAB, 6));
+        recipes.add(BuilderRecipe.of(Items.SANDSTONE, 6, Items.SANDSTONE_WALL, 6));
+
+        // Red Sandstone
+        recipes.add(BuilderRecipe.of(Items.RED_SAND, 4, Items.RED_SANDSTONE, 1));
+        recipes.add(BuilderRecipe.of(Items.RED_SANDSTONE, 6, Items.RED_SANDSTONE_STAIRS, 4));
+        recipes.add(BuilderRecipe.of(Items.RED_SANDSTONE, 3, Items.RED_SANDSTONE_SLAB, 6));
+        recipes.add(BuilderRecipe.of(Items.RED_SANDSTONE, 6, Items.RED_SANDSTONE_WALL, 6));
+
+        // === BRICKS ===
+        recipes.add(BuilderRecipe.of(Items.BRICKS, 6, Items.BRICK_STAIRS, 4));
+        recipes.add(BuilderRecipe.of(Items.BRICKS, 3, Items.BRICK_SLAB, 6));
+        recipes.add(BuilderRecipe.of(Items.BRICKS, 6, Items.BRICK_WALL, 6));
+
+        // === QUARTZ ===
+        recipes.add(BuilderRecipe.of(Items.QUARTZ_BLOCK, 6, Items.QUARTZ_STAIRS, 4));
+        recipes.add(BuilderRecipe.of(Items.QUARTZ_BLOCK, 3, Items.QUARTZ_SLAB, 6));
+        recipes.add(BuilderRecipe.of(Items.QUARTZ, 4, Items.QUARTZ_BLOCK, 1));
+
+        // === GLASS ===
+        recipes.add(BuilderRecipe.of(Items.GLASS, 6, Items.GLASS_PANE, 16));
+
+        // === IRON ===
+        recipes.add(BuilderRecipe.of(Items.IRON_INGOT, 6, Items.IRON_BARS, 16));
+        recipes.add(BuilderRecipe.of(Items.IRON_INGOT, 6, Items.IRON_DOOR, 3));
+        recipes.add(BuilderRecipe.of(Items.IRON_INGOT, 4, Items.IRON_TRAPDOOR, 1));
+        recipes.add(BuilderRecipe.of(Items.IRON_BLOCK, 1, Items.IRON_INGOT, 9));
+        recipes.add(BuilderRecipe.of(Items.IRON_INGOT, 9, Items.IRON_BLOCK, 1));
+
+        // === GOLD ===
+        recipes.add(BuilderRecipe.of(Items.GOLD_BLOCK, 1, Items.GOLD_INGOT, 9));
+        recipes.add(BuilderRecipe.of(Items.GOLD_INGOT, 9, Items.GOLD_BLOCK, 1));
+
+        // === DIAMOND ===
+        recipes.add(BuilderRecipe.of(Items.DIAMOND_BLOCK, 1, Items.DIAMOND, 9));
+        recipes.add(BuilderRecipe.of(Items.DIAMOND, 9, Items.DIAMOND_BLOCK, 1));
+
+        // === WOOL & CARPET ===
+        recipes.add(BuilderRecipe.of(ItemTags.WOOL, 2, ItemTags.WOOL_CARPETS, 3));
+
+        // === OTHER ===
+        // Stick + Coal to Torch (1 stick + 1 coal → 4 torches)
+        recipes.add(BuilderRecipe.of(Items.STICK, 1, Items.COAL, 1, Items.TORCH, 4));
+        recipes.add(BuilderRecipe.of(Items.STICK, 1, Items.CHARCOAL, 1, Items.TORCH, 4));
+
+        ALL = Collections.unmodifiableList(recipes);
+    }
+}
@@ -0,0 +1,31 @@
+package com.nothomealone.crafting;
+
+import net.minecraft.world.item.Item;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An ordered list of steps that ends with the wanted item in the builder's inventory.
+ * Steps name concrete items, so executing a plan never has to pick a tag variant.
+ * @param output The item the plan makes
+ * @param count How many of the output the plan makes (at least)
+ */
+public record CraftingPlan(Item output, int count, List<Step> steps) {
+
+    public sealed interface Step permits Fetch, Craft {}
+
+    /**
+     * Take items from the station into the builder's inventory.
+     */
+    public record Fetch(Item item, int count) implements Step {}
+
+    /**
+     * Remove the consumed items from the builder's inventory and add batches * outputCount of the output.
+     */
+    public record Craft(RecipeGraph.Production production, int batches, Map<Item, Integer> consumed) implements Step {
+        public int outputCount() {
+            return batches * production.outputCount();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.nothomealone.crafting;
+
+import com.nothomealone.block.entity.StationBlockEntity;
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
+import com.nothomealone.inventory.BuilderInventory;
+import it.unimi.dsi.fastutil.objects.Reference2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.block.Block;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds out how a builder can craft a block from what is in its inventory and its station.
+ * The search runs over a snapshot of both containers and produces a complete {@link CraftingPlan}
+ * (fetches and crafts in order), so checking and crafting share one computation.
+ * The last result is kept until the inventory, the station contents or the item tags change,
+ * which makes repeated checks for the same block (every goal tick) free.
+ */
+public class CraftingSolver {
+    // Same limit as the old recursive crafting: a block, its inputs and their inputs
+    private static final int MAX_DEPTH = 3;
+
+    private Block memoBlock;
+    private int memoAmount;
+    private int memoInventoryVersion;
+    private StationBlockEntity memoStation;
+    private int memoStationVersion;
+    private RecipeGraph memoGraph;
+    private CraftingPlan memoPlan;
+
+    /**
+     * Plans crafting the block (or a compatible block).
+     * @param amount How many items are wanted; fewer are planned if materials do not allow it
+     * @param station The builder's station, or null
+     * @return The plan, or null if nothing can be crafted
+     */
+    public CraftingPlan plan(Block neededBlock, int amount, BuilderInventory inventory, @Nullable StationBlockEntity station) {
+        RecipeGraph graph = RecipeGraph.get();
+        int inventoryVersion = inventory.getModCount();
+        int stationVersion = station == null ? -1 : station.getContentVersion();
+        if (memoGraph == graph && memoBlock == neededBlock && memoAmount == amount
+                && memoInventoryVersion == inventoryVersion && memoStation == station && memoStationVersion == stationVersion) {
+            return memoPlan;
+        }
+
+        memoPlan = solve(graph, neededBlock, Math.max(1, amount), new Pool(inventory, station));
+        memoGraph = graph;
+        memoBlock = neededBlock;
+        memoAmount = amount;
+        memoInventoryVersion = inventoryVersion;
+        memoStation = station;
+        memoStationVersion = stationVersion;
+        return memoPlan;
+    }
+
+    public void invalidate() {
+        memoGraph = null;
+        memoPlan = null;
+    }
+
+    private static CraftingPlan solve(RecipeGraph graph, Block neededBlock, int amount, Pool base) {
+        List<Item> candidates = graph.candidatesFor(neededBlock);
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        // Try the full amount first, then halve until one item
+        for (int wanted = amount; wanted >= 1; wanted = wanted == 1 ? 0 : (wanted + 1) / 2) {
+            for (Item candidate : candidates) {
+                for (RecipeGraph.Production production : graph.producersOf(candidate)) {
+                    Search search = new Search(graph, base.copy());
+                    if (search.craft(production, wanted, 0)) {
+                        final int planned = wanted;
+                        Diagnostics.debug(DiagCategory.CRAFTING, null, () -> "Planned " + planned + "x " + candidate.getDescriptionId()
+                            + " for " + neededBlock.getName().getString() + " in " + search.steps.size() + " steps");
+                        return new CraftingPlan(candidate, wanted, List.copyOf(search.steps));
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Depth-first search over the graph, consuming from a pool and recording steps.
+     */
+    private static class Search {
+        private final RecipeGraph graph;
+        private Pool pool;
+        private final List<CraftingPlan.Step> steps = new ArrayList<>();
+        // Items being crafted further up, to skip cycles like ingot -> block -> ingot
+        private final Set<Item> inProgress = new HashSet<>();
+
+        Search(RecipeGraph graph, Pool pool) {
+            this.graph = graph;
+            this.pool = pool;
+        }
+
+        boolean craft(RecipeGraph.Production production, int wanted, int depth) {
+            int batches = (wanted + production.outputCount() - 1) / production.outputCount();
+            if (!inProgress.add(production.output())) {
+                return false;
+            }
+            try {
+                Map<Item, Integer> consumed = new LinkedHashMap<>();
+                for (BuilderRecipe.Input input : production.inputs()) {
+                    if (!obtain(input.itemOrTag(), input.count() * batches, depth + 1, consumed)) {
+                        return false;
+                    }
+                }
+                pool.inventory.addTo(production.output(), batches * production.outputCount());
+                steps.add(new CraftingPlan.Craft(production, batches, Map.copyOf(consumed)));
+                return true;
+            } finally {
+                inProgress.remove(production.output());
+            }
+        }
+
+        /**
+         * Takes count items from the pool, crafting what is missing.
+         */
+        boolean obtain(Object itemOrTag, int count, int depth, Map<Item, Integer> consumed) {
+            int missing = count - take(itemOrTag, count, consumed);
+            if (missing == 0) {
+                return true;
+            }
+            if (depth >= MAX_DEPTH) {
+                return false;
+            }
+
+            for (RecipeGraph.Production production : graph.producersOf(itemOrTag)) {
+                Pool saved = pool.copy();
+                int savedSteps = steps.size();
+                if (craft(production, missing, depth)) {
+                    take(production.output(), missing, consumed);
+                    return true;
+                }
+                pool = saved;
+                steps.subList(savedSteps, steps.size()).clear();
+            }
+            return false;
+        }
+
+        /**
+         * Takes up to count items, inventory first, then station (adding fetch steps).
+         * @return How many were taken
+         */
+        private int take(Object itemOrTag, int count, Map<Item, Integer> consumed) {
+            int taken = takeFrom(pool.inventory, itemOrTag, count, consumed, false);
+            if (taken < count) {
+                taken += takeFrom(pool.station, itemOrTag, count - taken, consumed, true);
+            }
+            return taken;
+        }
+
+        private int takeFrom(Reference2IntLinkedOpenHashMap<Item> counts, Object itemOrTag, int count,
+                             Map<Item, Integer> consumed, boolean fetch) {
+            int taken = 0;
+            for (Reference2IntMap.Entry<Item> entry : counts.reference2IntEntrySet()) {
+                if (taken >= count) break;
+                Item item = entry.getKey();
+                if (entry.getIntValue() <= 0 || !BuilderRecipe.matches(item, itemOrTag)) continue;
+
+                int n = Math.min(count - taken, entry.getIntValue());
+                entry.setValue(entry.getIntValue() - n);
+                consumed.merge(item, n, Integer::sum);
+                if (fetch) {
+                    steps.add(new CraftingPlan.Fetch(item, n));
+                }
+                taken += n;
+            }
+            return taken;
+        }
+    }
+
+    /**
+     * Item counts of the inventory and the station, in slot order.
+     */
+    private static class Pool {
+        final Reference2IntLinkedOpenHashMap<Item> inventory;
+        final Reference2IntLinkedOpenHashMap<Item> station;
+
+        Pool(BuilderInventory inventory, @Nullable StationBlockEntity station) {
+            this.inventory = new Reference2IntLinkedOpenHashMap<>();
+            this.station = new Reference2IntLinkedOpenHashMap<>();
+            for (int i = 0; i < inventory.getContainerSize(); i++) {
+                add(this.inventory, inventory.peekItem(i));
+            }
+            if (station != null) {
+                // Read from the station's count index, no slot scan
+                for (Item item : station.getStoredItems()) {
+                    this.station.put(item, station.count(item));
+                }
+            }
+        }
+
+        private Pool(Pool other) {
+            this.inventory = new Reference2IntLinkedOpenHashMap<>(other.inventory);
+            this.station = new Reference2IntLinkedOpenHashMap<>(other.station);
+        }
+
+        private static void add(Reference2IntLinkedOpenHashMap<Item> counts, ItemStack stack) {
+            if (!stack.isEmpty() && stack.getItem() != Items.AIR) {
+                counts.addTo(stack.getItem(), stack.getCount());
+            }
+        }
+
+        Pool copy() {
+            return new Pool(this);
+        }
+    }
+}
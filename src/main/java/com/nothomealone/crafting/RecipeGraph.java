@@ -0,0 +1,183 @@
+package com.nothomealone.crafting;
+
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
+import com.nothomealone.structure.BlockCompatibility;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.tags.ItemTags;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The builder recipes compiled into a graph indexed by output item.
+ * Every tag output is expanded into one {@link Production} per concrete item, and wood recipes
+ * are resolved per wood type (oak fence needs oak planks, oak planks need oak logs), so the solver
+ * never has to guess which variant a tag recipe makes.
+ * The graph depends on item tags: it is recompiled on first use after tags were reloaded.
+ */
+public class RecipeGraph {
+    private static RecipeGraph instance;
+    private static int compiledVersion = -1;
+
+    private final Map<Item, List<Production>> producersByOutput = new Reference2ObjectLinkedOpenHashMap<>();
+    private final Map<TagKey<Item>, List<Production>> producersByTag = new HashMap<>();
+    private final Map<Block, List<Item>> candidatesByBlock = new HashMap<>();
+
+    /**
+     * A way to make one concrete item: a recipe with its inputs resolved for that item.
+     */
+    public record Production(Item output, int outputCount, List<BuilderRecipe.Input> inputs) {}
+
+    /**
+     * Items of one wood type. Recipes from planks (or logs) to a wood item of this type
+     * use this type's planks (or logs).
+     */
+    private record WoodFamily(TagKey<Item> logs, Item planks, Item... products) {}
+
+    private static final WoodFamily[] WOOD_FAMILIES = {
+        new WoodFamily(ItemTags.OAK_LOGS, Items.OAK_PLANKS, Items.OAK_STAIRS, Items.OAK_SLAB, Items.OAK_FENCE,
+            Items.OAK_FENCE_GATE, Items.OAK_DOOR, Items.OAK_TRAPDOOR, Items.OAK_PRESSURE_PLATE, Items.OAK_BUTTON, Items.OAK_SIGN),
+        new WoodFamily(ItemTags.BIRCH_LOGS, Items.BIRCH_PLANKS, Items.BIRCH_STAIRS, Items.BIRCH_SLAB, Items.BIRCH_FENCE,
+            Items.BIRCH_FENCE_GATE, Items.BIRCH_DOOR, Items.BIRCH_TRAPDOOR, Items.BIRCH_PRESSURE_PLATE, Items.BIRCH_BUTTON, Items.BIRCH_SIGN),
+        new WoodFamily(ItemTags.SPRUCE_LOGS, Items.SPRUCE_PLANKS, Items.SPRUCE_STAIRS, Items.SPRUCE_SLAB, Items.SPRUCE_FENCE,
+            Items.SPRUCE_FENCE_GATE, Items.SPRUCE_DOOR, Items.SPRUCE_TRAPDOOR, Items.SPRUCE_PRESSURE_PLATE, Items.SPRUCE_BUTTON, Items.SPRUCE_SIGN),
+        new WoodFamily(ItemTags.JUNGLE_LOGS, Items.JUNGLE_PLANKS, Items.JUNGLE_STAIRS, Items.JUNGLE_SLAB, Items.JUNGLE_FENCE,
+            Items.JUNGLE_FENCE_GATE, Items.JUNGLE_DOOR, Items.JUNGLE_TRAPDOOR, Items.JUNGLE_PRESSURE_PLATE, Items.JUNGLE_BUTTON, Items.JUNGLE_SIGN),
+        new WoodFamily(ItemTags.ACACIA_LOGS, Items.ACACIA_PLANKS, Items.ACACIA_STAIRS, Items.ACACIA_SLAB, Items.ACACIA_FENCE,
+            Items.ACACIA_FENCE_GATE, Items.ACACIA_DOOR, Items.ACACIA_TRAPDOOR, Items.ACACIA_PRESSURE_PLATE, Items.ACACIA_BUTTON, Items.ACACIA_SIGN),
+        new WoodFamily(ItemTags.DARK_OAK_LOGS, Items.DARK_OAK_PLANKS, Items.DARK_OAK_STAIRS, Items.DARK_OAK_SLAB, Items.DARK_OAK_FENCE,
+            Items.DARK_OAK_FENCE_GATE, Items.DARK_OAK_DOOR, Items.DARK_OAK_TRAPDOOR, Items.DARK_OAK_PRESSURE_PLATE, Items.DARK_OAK_BUTTON, Items.DARK_OAK_SIGN),
+        new WoodFamily(ItemTags.CHERRY_LOGS, Items.CHERRY_PLANKS, Items.CHERRY_STAIRS, Items.CHERRY_SLAB, Items.CHERRY_FENCE,
+            Items.CHERRY_FENCE_GATE, Items.CHERRY_DOOR, Items.CHERRY_TRAPDOOR, Items.CHERRY_PRESSURE_PLATE, Items.CHERRY_BUTTON, Items.CHERRY_SIGN),
+        new WoodFamily(ItemTags.MANGROVE_LOGS, Items.MANGROVE_PLANKS, Items.MANGROVE_STAIRS, Items.MANGROVE_SLAB, Items.MANGROVE_FENCE,
+            Items.MANGROVE_FENCE_GATE, Items.MANGROVE_DOOR, Items.MANGROVE_TRAPDOOR, Items.MANGROVE_PRESSURE_PLATE, Items.MANGROVE_BUTTON, Items.MANGROVE_SIGN),
+        new WoodFamily(ItemTags.BAMBOO_BLOCKS, Items.BAMBOO_PLANKS, Items.BAMBOO_STAIRS, Items.BAMBOO_SLAB, Items.BAMBOO_FENCE,
+            Items.BAMBOO_FENCE_GATE, Items.BAMBOO_DOOR, Items.BAMBOO_TRAPDOOR, Items.BAMBOO_PRESSURE_PLATE, Items.BAMBOO_BUTTON, Items.BAMBOO_SIGN),
+        new WoodFamily(ItemTags.CRIMSON_STEMS, Items.CRIMSON_PLANKS, Items.CRIMSON_STAIRS, Items.CRIMSON_SLAB, Items.CRIMSON_FENCE,
+            Items.CRIMSON_FENCE_GATE, Items.CRIMSON_DOOR, Items.CRIMSON_TRAPDOOR, Items.CRIMSON_PRESSURE_PLATE, Items.CRIMSON_BUTTON, Items.CRIMSON_SIGN),
+        new WoodFamily(ItemTags.WARPED_STEMS, Items.WARPED_PLANKS, Items.WARPED_STAIRS, Items.WARPED_SLAB, Items.WARPED_FENCE,
+            Items.WARPED_FENCE_GATE, Items.WARPED_DOOR, Items.WARPED_TRAPDOOR, Items.WARPED_PRESSURE_PLATE, Items.WARPED_BUTTON, Items.WARPED_SIGN)
+    };
+
+    private static final Map<Item, WoodFamily> FAMILY_BY_ITEM = new HashMap<>();
+
+    static {
+        for (WoodFamily family : WOOD_FAMILIES) {
+            FAMILY_BY_ITEM.put(family.planks(), family);
+            for (Item product : family.products()) {
+                FAMILY_BY_ITEM.put(product, family);
+            }
+        }
+    }
+
+    /**
+     * Gets the graph for the currently bound tags, compiling it if needed.
+     */
+    public static RecipeGraph get() {
+        // Tag reloads bump the compatibility version
+        if (instance == null || compiledVersion != BlockCompatibility.getVersion()) {
+            instance = new RecipeGraph(BuilderRecipes.ALL);
+            compiledVersion = BlockCompatibility.getVersion();
+        }
+        return instance;
+    }
+
+    RecipeGraph(List<BuilderRecipe> recipes) {
+        int productions = 0;
+        for (BuilderRecipe recipe : recipes) {
+            for (Item output : expand(recipe.output())) {
+                WoodFamily family = FAMILY_BY_ITEM.get(output);
+                List<BuilderRecipe.Input> inputs = new ArrayList<>(recipe.inputs().size());
+                for (BuilderRecipe.Input input : recipe.inputs()) {
+                    inputs.add(new BuilderRecipe.Input(resolve(input.itemOrTag(), family), input.count()));
+                }
+                producersByOutput.computeIfAbsent(output, k -> new ArrayList<>())
+                    .add(new Production(output, recipe.outputCount(), List.copyOf(inputs)));
+                productions++;
+            }
+        }
+        final int productionCount = productions;
+        Diagnostics.info(DiagCategory.CRAFTING, null, () -> "Compiled " + recipes.size() + " recipes into " + productionCount + " productions for " + producersByOutput.size() + " items");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Item> expand(Object itemOrTag) {
+        List<Item> items = new ArrayList<>();
+        if (itemOrTag instanceof Item item) {
+            items.add(item);
+        } else if (itemOrTag instanceof TagKey<?> tag) {
+            for (Holder<Item> holder : BuiltInRegistries.ITEM.getTagOrEmpty((TagKey<Item>) tag)) {
+                items.add(holder.value());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Narrows a planks or logs input to the wood type of the output.
+     */
+    private static Object resolve(Object itemOrTag, WoodFamily family) {
+        if (family == null) {
+            return itemOrTag;
+        }
+        if (itemOrTag == ItemTags.PLANKS) {
+            return family.planks();
+        }
+        if (itemOrTag == ItemTags.LOGS) {
+            return family.logs();
+        }
+        return itemOrTag;
+    }
+
+    /**
+     * Gets the productions of an Item, or of every item in an item TagKey.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Production> producersOf(Object itemOrTag) {
+        if (itemOrTag instanceof Item item) {
+            return producersByOutput.getOrDefault(item, List.of());
+        } else if (itemOrTag instanceof TagKey<?> tag) {
+            return producersByTag.computeIfAbsent((TagKey<Item>) tag, t -> {
+                List<Production> productions = new ArrayList<>();
+                for (Map.Entry<Item, List<Production>> entry : producersByOutput.entrySet()) {
+                    if (entry.getKey().builtInRegistryHolder().is(t)) {
+                        productions.addAll(entry.getValue());
+                    }
+                }
+                return List.copyOf(productions);
+            });
+        }
+        return List.of();
+    }
+
+    /**
+     * Gets the craftable items that can be placed for a block: the block's own item first,
+     * then compatible items in recipe order.
+     */
+    public List<Item> candidatesFor(Block block) {
+        return candidatesByBlock.computeIfAbsent(block, b -> {
+            List<Item> candidates = new ArrayList<>();
+            Item own = b.asItem();
+            if (producersByOutput.containsKey(own)) {
+                candidates.add(own);
+            }
+            for (Item item : producersByOutput.keySet()) {
+                Block itemBlock = Block.byItem(item);
+                if (item != own && itemBlock != Blocks.AIR && BlockCompatibility.areCompatible(itemBlock, b)) {
+                    candidates.add(item);
+                }
+            }
+            return List.copyOf(candidates);
+        });
+    }
+}
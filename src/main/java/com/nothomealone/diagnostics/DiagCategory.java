@@ -0,0 +1,18 @@
+package com.nothomealone.diagnostics;
+
+/**
+ * Areas of the mod whose diagnostics can be turned up or down separately.
+ */
+public enum DiagCategory {
+    BUILD,
+    CRAFTING,
+    INVENTORY,
+    AI,
+    TASKS,
+    STRUCTURE,
+    TERRITORY;
+
+    public String id() {
+        return name().toLowerCase(java.util.Locale.ROOT);
+    }
+}
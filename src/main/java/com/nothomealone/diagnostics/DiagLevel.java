@@ -0,0 +1,17 @@
+package com.nothomealone.diagnostics;
+
+/**
+ * Diagnostics levels, from least to most verbose.
+ * A category set to a level records messages of that level and all levels before it.
+ */
+public enum DiagLevel {
+    OFF,
+    WARN,
+    INFO,
+    DEBUG,
+    TRACE;
+
+    public String id() {
+        return name().toLowerCase(java.util.Locale.ROOT);
+    }
+}
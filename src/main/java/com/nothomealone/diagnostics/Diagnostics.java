@@ -0,0 +1,155 @@
+package com.nothomealone.diagnostics;
+
+import com.mojang.logging.LogUtils;
+import com.nothomealone.NotHomeAlone;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.minecraft.world.entity.Entity;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Gated diagnostics for the mod's hot paths.
+ * Every category has its own level, changeable at runtime (see {@link DiagnosticsCommand}).
+ * Messages are passed as suppliers, so nothing is built when the category is below the message level.
+ * Messages about an entity are rate limited per entity and category.
+ * Accepted messages go to a {@link TraceBuffer} that can be dumped on demand; WARN and INFO
+ * messages are also written to the log, DEBUG and TRACE only when echo is on.
+ */
+@Mod.EventBusSubscriber(modid = NotHomeAlone.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class Diagnostics {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int BUFFER_CAPACITY = 1024;
+    // At most RATE_LIMIT_MAX messages per entity and category every RATE_LIMIT_WINDOW ticks
+    private static final int RATE_LIMIT_WINDOW = 20;
+    private static final int RATE_LIMIT_MAX = 8;
+
+    private static final DiagLevel[] levels = new DiagLevel[DiagCategory.values().length];
+    private static final TraceBuffer buffer = new TraceBuffer(BUFFER_CAPACITY);
+    // (entity id, category) -> window << 32 | count in window
+    private static final Long2LongOpenHashMap rateWindows = new Long2LongOpenHashMap();
+    private static boolean echo = false;
+    private static long gameTime = 0;
+    private static long suppressed = 0;
+
+    static {
+        Arrays.fill(levels, DiagLevel.INFO);
+    }
+
+    /**
+     * Checks if messages of the level are recorded for the category.
+     */
+    public static boolean isEnabled(DiagCategory category, DiagLevel level) {
+        return level != DiagLevel.OFF && level.ordinal() <= levels[category.ordinal()].ordinal();
+    }
+
+    public static DiagLevel getLevel(DiagCategory category) {
+        return levels[category.ordinal()];
+    }
+
+    public static void setLevel(DiagCategory category, DiagLevel level) {
+        levels[category.ordinal()] = level;
+    }
+
+    public static void setAllLevels(DiagLevel level) {
+        Arrays.fill(levels, level);
+    }
+
+    public static boolean isEcho() {
+        return echo;
+    }
+
+    public static void setEcho(boolean enabled) {
+        echo = enabled;
+    }
+
+    public static TraceBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Gets how many messages were dropped by the rate limit.
+     */
+    public static long getSuppressed() {
+        return suppressed;
+    }
+
+    public static void trace(DiagCategory category, @Nullable Entity entity, Supplier<String> message) {
+        log(category, DiagLevel.TRACE, entity, message);
+    }
+
+    public static void debug(DiagCategory category, @Nullable Entity entity, Supplier<String> message) {
+        log(category, DiagLevel.DEBUG, entity, message);
+    }
+
+    public static void info(DiagCategory category, @Nullable Entity entity, Supplier<String> message) {
+        log(category, DiagLevel.INFO, entity, message);
+    }
+
+    public static void warn(DiagCategory category, @Nullable Entity entity, Supplier<String> message) {
+        log(category, DiagLevel.WARN, entity, message);
+    }
+
+    /**
+     * Records a warning together with the error that caused it; the stack trace goes to the log.
+     */
+    public static void warn(DiagCategory category, @Nullable Entity entity, Supplier<String> message, Throwable error) {
+        log(category, DiagLevel.WARN, entity, () -> message.get() + ": " + error);
+        if (isEnabled(category, DiagLevel.WARN)) {
+            LOGGER.warn("[" + category.id() + "] Stack trace", error);
+        }
+    }
+
+    /**
+     * Records a message if the category is at the level and the entity is within its rate limit.
+     * @param entity The entity the message is about, or null (not rate limited)
+     */
+    public static void log(DiagCategory category, DiagLevel level, @Nullable Entity entity, Supplier<String> message) {
+        if (!isEnabled(category, level)) {
+            return;
+        }
+        int entityId = entity == null ? -1 : entity.getId();
+        if (entity != null && !acquire(entityId, category)) {
+            suppressed++;
+            return;
+        }
+
+        String text = message.get();
+        buffer.add(new TraceBuffer.TraceEvent(gameTime, category, level, entityId, text));
+        if (level.ordinal() <= DiagLevel.INFO.ordinal() || echo) {
+            String prefix = entityId == -1 ? "[" + category.id() + "] " : "[" + category.id() + " #" + entityId + "] ";
+            if (level == DiagLevel.WARN) {
+                LOGGER.warn(prefix + text);
+            } else {
+                LOGGER.info(prefix + text);
+            }
+        }
+    }
+
+    private static boolean acquire(int entityId, DiagCategory category) {
+        long key = ((long) entityId << 8) | category.ordinal();
+        long window = gameTime / RATE_LIMIT_WINDOW;
+        long state = rateWindows.get(key);
+        long count = (state >>> 32) == window ? (state & 0xFFFFFFFFL) : 0;
+        if (count >= RATE_LIMIT_MAX) {
+            return false;
+        }
+        rateWindows.put(key, (window << 32) | (count + 1));
+        return true;
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+        gameTime++;
+        // Forget old windows now and then so removed entities do not pile up
+        if (gameTime % 1200 == 0) {
+            rateWindows.clear();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.nothomealone.diagnostics;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.nothomealone.NotHomeAlone;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.commands.SharedSuggestionProvider;
+import net.minecraft.network.chat.Component;
+import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * /nothomealone diag commands:
+ * <ul>
+ *   <li>diag - shows levels, echo and buffer state</li>
+ *   <li>diag level &lt;category|all&gt; &lt;level&gt; - sets a category level</li>
+ *   <li>diag echo &lt;true|false&gt; - also writes DEBUG and TRACE messages to the log</li>
+ *   <li>diag dump [count] - prints the most recent buffered events</li>
+ *   <li>diag clear - empties the buffer</li>
+ * </ul>
+ */
+@Mod.EventBusSubscriber(modid = NotHomeAlone.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class DiagnosticsCommand {
+    private static final int DEFAULT_DUMP_COUNT = 50;
+
+    @SubscribeEvent
+    public static void onRegisterCommands(RegisterCommandsEvent event) {
+        register(event.getDispatcher());
+    }
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal(NotHomeAlone.MOD_ID)
+            .requires(source -> source.hasPermission(2))
+            .then(Commands.literal("diag")
+                .executes(DiagnosticsCommand::status)
+                .then(Commands.literal("level")
+                    .then(Commands.argument("category", StringArgumentType.word())
+                        .suggests((ctx, builder) -> SharedSuggestionProvider.suggest(
+                            Stream.concat(Stream.of("all"), Arrays.stream(DiagCategory.values()).map(DiagCategory::id)), builder))
+                        .then(Commands.argument("level", StringArgumentType.word())
+                            .suggests((ctx, builder) -> SharedSuggestionProvider.suggest(
+                                Arrays.stream(DiagLevel.values()).map(DiagLevel::id), builder))
+                            .executes(DiagnosticsCommand::setLevel))))
+                .then(Commands.literal("echo")
+                    .then(Commands.argument("enabled", BoolArgumentType.bool())
+                        .executes(ctx -> {
+                            boolean enabled = BoolArgumentType.getBool(ctx, "enabled");
+                            Diagnostics.setEcho(enabled);
+                            ctx.getSource().sendSuccess(() -> Component.literal("Diagnostics echo " + (enabled ? "on" : "off")), true);
+                            return 1;
+                        })))
+                .then(Commands.literal("dump")
+                    .executes(ctx -> dump(ctx, DEFAULT_DUMP_COUNT))
+                    .then(Commands.argument("count", IntegerArgumentType.integer(1, 1024))
+                        .executes(ctx -> dump(ctx, IntegerArgumentType.getInteger(ctx, "count")))))
+                .then(Commands.literal("clear")
+                    .executes(ctx -> {
+                        Diagnostics.getBuffer().clear();
+                        ctx.getSource().sendSuccess(() -> Component.literal("Diagnostics buffer cleared"), true);
+                        return 1;
+                    }))));
+    }
+
+    private static int status(CommandContext<CommandSourceStack> ctx) {
+        StringBuilder levels = new StringBuilder();
+        for (DiagCategory category : DiagCategory.values()) {
+            if (levels.length() > 0) levels.append(", ");
+            levels.append(category.id()).append('=').append(Diagnostics.getLevel(category).id());
+        }
+        String text = "Diagnostics: " + levels
+            + "\nEcho: " + (Diagnostics.isEcho() ? "on" : "off")
+            + "\nBuffer: " + Diagnostics.getBuffer().size() + "/" + Diagnostics.getBuffer().capacity()
+            + ", rate limited: " + Diagnostics.getSuppressed();
+        ctx.getSource().sendSuccess(() -> Component.literal(text), false);
+        return 1;
+    }
+
+    private static int setLevel(CommandContext<CommandSourceStack> ctx) {
+        String categoryName = StringArgumentType.getString(ctx, "category");
+        String levelName = StringArgumentType.getString(ctx, "level");
+
+        DiagLevel level = Arrays.stream(DiagLevel.values())
+            .filter(l -> l.id().equals(levelName)).findFirst().orElse(null);
+        if (level == null) {
+            ctx.getSource().sendFailure(Component.literal("Unknown level: " + levelName));
+            return 0;
+        }
+        if (categoryName.equals("all")) {
+            Diagnostics.setAllLevels(level);
+        } else {
+            DiagCategory category = Arrays.stream(DiagCategory.values())
+                .filter(c -> c.id().equals(categoryName)).findFirst().orElse(null);
+            if (category == null) {
+                ctx.getSource().sendFailure(Component.literal("Unknown category: " + categoryName));
+                return 0;
+            }
+            Diagnostics.setLevel(category, level);
+        }
+        ctx.getSource().sendSuccess(() -> Component.literal("Diagnostics " + categoryName + " set to " + level.id()), true);
+        return 1;
+    }
+
+    private static int dump(CommandContext<CommandSourceStack> ctx, int count) {
+        List<TraceBuffer.TraceEvent> events = Diagnostics.getBuffer().recent(count);
+        if (events.isEmpty()) {
+            ctx.getSource().sendSuccess(() -> Component.literal("Diagnostics buffer is empty"), false);
+            return 0;
+        }
+        for (TraceBuffer.TraceEvent event : events) {
+            ctx.getSource().sendSuccess(() -> Component.literal(event.toString()), false);
+        }
+        return events.size();
+    }
+}
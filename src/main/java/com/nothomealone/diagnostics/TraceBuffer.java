@@ -0,0 +1,65 @@
+package com.nothomealone.diagnostics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size ring buffer of the most recent diagnostics events.
+ * Once full, each new event overwrites the oldest one.
+ */
+public class TraceBuffer {
+    private final TraceEvent[] events;
+    private int next = 0;
+    private int size = 0;
+
+    /**
+     * A recorded event.
+     * @param entityId The entity the event is about, or -1
+     */
+    public record TraceEvent(long gameTime, DiagCategory category, DiagLevel level, int entityId, String message) {
+        @Override
+        public String toString() {
+            String entity = entityId == -1 ? "" : " #" + entityId;
+            return "[" + gameTime + "] " + level.name() + " " + category.id() + entity + ": " + message;
+        }
+    }
+
+    public TraceBuffer(int capacity) {
+        this.events = new TraceEvent[capacity];
+    }
+
+    public synchronized void add(TraceEvent event) {
+        events[next] = event;
+        next = (next + 1) % events.length;
+        if (size < events.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Gets up to count of the most recent events, oldest first.
+     */
+    public synchronized List<TraceEvent> recent(int count) {
+        int n = Math.min(count, size);
+        List<TraceEvent> result = new ArrayList<>(n);
+        int start = next - n;
+        for (int i = 0; i < n; i++) {
+            result.add(events[Math.floorMod(start + i, events.length)]);
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return events.length;
+    }
+
+    public synchronized void clear() {
+        java.util.Arrays.fill(events, null);
+        next = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.nothomealone.entity;
+
+import com.nothomealone.NotHomeAlone;
+import com.nothomealone.entity.custom.WorkerEntity;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.event.entity.EntityJoinLevelEvent;
+import net.minecraftforge.event.entity.EntityLeaveLevelEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Tracks which worker belongs to which station, per dimension.
+ * Workers are added when they join a level and removed when they leave it
+ * (discard, death or chunk unload), so looking up the worker of a station is
+ * a hash lookup instead of a scan over every entity in the level.
+ */
+@Mod.EventBusSubscriber(modid = NotHomeAlone.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class WorkerRegistry {
+    private static final Map<ResourceKey<Level>, DimensionWorkers> dimensions = new HashMap<>();
+
+    /**
+     * Registers a worker under its current station (or as orphan if it has none).
+     * Safe to call again after the worker's station changed.
+     */
+    public static void register(WorkerEntity worker) {
+        if (worker.level().isClientSide) return;
+
+        DimensionWorkers workers = dimensions.computeIfAbsent(worker.level().dimension(), k -> new DimensionWorkers());
+        workers.remove(worker.getUUID());
+
+        BlockPos stationPos = worker.getStationPos();
+        if (stationPos == null) {
+            workers.orphans.add(worker.getUUID());
+        } else {
+            BlockPos key = stationPos.immutable();
+            workers.byStation.put(key, worker.getUUID());
+            workers.stationOf.put(worker.getUUID(), key);
+        }
+    }
+
+    /**
+     * Removes a worker from the registry.
+     */
+    public static void unregister(WorkerEntity worker) {
+        DimensionWorkers workers = dimensions.get(worker.level().dimension());
+        if (workers != null) {
+            workers.remove(worker.getUUID());
+        }
+    }
+
+    /**
+     * Gets the worker assigned to a station.
+     * @return The worker, or null if none is loaded
+     */
+    public static WorkerEntity getWorker(ServerLevel level, BlockPos stationPos) {
+        DimensionWorkers workers = dimensions.get(level.dimension());
+        if (workers == null) return null;
+
+        UUID uuid = workers.byStation.get(stationPos);
+        if (uuid == null) return null;
+
+        Entity entity = level.getEntity(uuid);
+        if (entity instanceof WorkerEntity worker && !worker.isRemoved() && stationPos.equals(worker.getStationPos())) {
+            return worker;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the worker of a specific type assigned to a station.
+     * @return The worker, or null if none is loaded or it has a different type
+     */
+    public static <T extends WorkerEntity> T getWorker(ServerLevel level, BlockPos stationPos, Class<T> type) {
+        WorkerEntity worker = getWorker(level, stationPos);
+        return type.isInstance(worker) ? type.cast(worker) : null;
+    }
+
+    /**
+     * Gets all loaded workers of the level that have no station.
+     */
+    public static List<WorkerEntity> getOrphans(ServerLevel level) {
+        List<WorkerEntity> result = new ArrayList<>();
+        DimensionWorkers workers = dimensions.get(level.dimension());
+        if (workers == null) return result;
+
+        for (UUID uuid : workers.orphans) {
+            if (level.getEntity(uuid) instanceof WorkerEntity worker && !worker.isRemoved()) {
+                result.add(worker);
+            }
+        }
+        return result;
+    }
+
+    @SubscribeEvent
+    public static void onEntityJoin(EntityJoinLevelEvent event) {
+        if (event.getEntity() instanceof WorkerEntity worker && !event.getLevel().isClientSide) {
+            register(worker);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onEntityLeave(EntityLeaveLevelEvent event) {
+        if (event.getEntity() instanceof WorkerEntity worker && !event.getLevel().isClientSide) {
+            unregister(worker);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        dimensions.clear();
+    }
+
+    /**
+     * Station and orphan lookups for one dimension.
+     */
+    private static class DimensionWorkers {
+        private final Map<BlockPos, UUID> byStation = new HashMap<>();
+        private final Map<UUID, BlockPos> stationOf = new HashMap<>();
+        private final Set<UUID> orphans = new HashSet<>();
+
+        void remove(UUID uuid) {
+            orphans.remove(uuid);
+            BlockPos stationPos = stationOf.remove(uuid);
+            if (stationPos != null && uuid.equals(byStation.get(stationPos))) {
+                byStation.remove(stationPos);
+            }
+        }
+    }
+}
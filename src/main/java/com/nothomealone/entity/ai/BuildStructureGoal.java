@@ -1,5 +1,7 @@
 package com.nothomealone.entity.ai;
 
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
 import com.nothomealone.entity.custom.BuilderEntity;
 import com.nothomealone.structure.BuildTask;
 import net.minecraft.core.BlockPos;
@@ -12,10 +14,21 @@ import java.util.EnumSet;
  * AI Goal for Builder to navigate to construction site and place blocks.
  */
 public class BuildStructureGoal extends Goal {
+    // Ticks to wait before trying again when a path could not be found or did not get the builder in reach
+    private static final int REPATH_DELAY = 40;
+    
     private final BuilderEntity builder;
     private BuildTask.BuildStep currentStep;
     private Path path;
-    private int ticksStuck = 0;
+    // Ticks left before the next path attempt, after a failed or stuck path
+    private int repathDelay = 0;
+    // Standing spot for the steps being built, and the task it was planned for
+    private StandingPlanner.Cluster cluster;
+    private BuildTask clusterTask;
+    // Position at the previous tick, to measure how far the builder walks
+    private net.minecraft.world.phys.Vec3 lastPos;
+    // Whether the builder has the material for the next step; depends on the task and the inventory only
+    private final DecisionCache materialCheck = new DecisionCache(100);
 
     public BuildStructureGoal(BuilderEntity builder) {
         this.builder = builder;
@@ -33,48 +46,42 @@ public class BuildStructureGoal extends Goal {
         
         // Check if builder has the material for THE NEXT BLOCK to place (exact match or compatible)
         boolean hasMaterials = false;
-        if (hasTask && task != null) {
-            com.nothomealone.structure.BuildTask.BuildStep nextStep = task.getNextStep();
-            if (nextStep != null) {
-                net.minecraft.world.level.block.Block requiredBlock = nextStep.state.getBlock();
-                net.minecraft.core.NonNullList<net.minecraft.world.item.ItemStack> inventory = builder.getInventory();
-                for (net.minecraft.world.item.ItemStack stack : inventory) {
-                    if (!stack.isEmpty()) {
-                        net.minecraft.world.level.block.Block stackBlock = net.minecraft.world.level.block.Block.byItem(stack.getItem());
-                        if (stackBlock == requiredBlock || builder.areBlocksCompatible(stackBlock, requiredBlock)) {
-                            hasMaterials = true;
-                            break;
-                        }
-                    }
+        if (notCompleted) {
+            long gameTime = builder.level().getGameTime();
+            int inventoryVersion = builder.getInventory().getModCount();
+            if (materialCheck.isFresh(task, inventoryVersion, -1, gameTime)) {
+                hasMaterials = materialCheck.get();
+            } else {
+                com.nothomealone.structure.BuildTask.BuildStep nextStep = task.getNextStep();
+                if (nextStep != null) {
+                    net.minecraft.world.level.block.Block requiredBlock = nextStep.state().getBlock();
+                    // Removal and state change steps of an upgrade need no material
+                    hasMaterials = !nextStep.needsMaterial(builder.level()) || builder.getInventory().hasCompatible(requiredBlock);
                 }
+                materialCheck.store(task, inventoryVersion, -1, gameTime, hasMaterials);
             }
         }
         
         boolean result = withinArea && hasStation && hasTask && notCompleted && hasMaterials;
         
-        // Log every 20 ticks (1 second) for first 200 ticks, then every 100 ticks
-        boolean shouldLog = (builder.tickCount < 200 && builder.tickCount % 20 == 0) || 
-                           (builder.tickCount >= 200 && builder.tickCount % 100 == 0);
-        
-        if (shouldLog) {
-            System.out.println("[BuildStructureGoal] Builder #" + builder.getId() + " canUse() check at tick " + builder.tickCount);
-            System.out.println("  withinArea=" + withinArea + " (pos=" + builder.blockPosition() + ", station=" + builder.getStationPos() + ")");
-            System.out.println("  hasStation=" + hasStation);
-            System.out.println("  hasTask=" + hasTask);
-            System.out.println("  notCompleted=" + notCompleted);
-            if (hasTask && task != null) {
+        final boolean materials = hasMaterials;
+        Diagnostics.trace(DiagCategory.AI, builder, () -> {
+            StringBuilder message = new StringBuilder("BuildStructureGoal canUse() at tick " + builder.tickCount)
+                .append(": withinArea=").append(withinArea).append(" (pos=").append(builder.blockPosition())
+                .append(", station=").append(builder.getStationPos()).append(")")
+                .append(", hasStation=").append(hasStation)
+                .append(", hasTask=").append(hasTask)
+                .append(", notCompleted=").append(notCompleted);
+            if (task != null) {
                 com.nothomealone.structure.BuildTask.BuildStep nextStep = task.getNextStep();
                 if (nextStep != null) {
-                    System.out.println("  nextBlock needed: " + nextStep.state.getBlock().getName().getString());
-                    System.out.println("  nextBlock position: " + nextStep.pos);
+                    message.append(", nextBlock=").append(nextStep.state().getBlock().getName().getString())
+                        .append(" at ").append(nextStep.pos());
                 }
+                message.append(", progress=").append(task.getCompletedSteps()).append("/").append(task.getTotalSteps());
             }
-            System.out.println("  hasMaterials=" + hasMaterials);
-            System.out.println("  result=" + result);
-            if (hasTask && task != null) {
-                System.out.println("  task progress: " + task.getCompletedSteps() + "/" + task.getTotalSteps());
-            }
-        }
+            return message.append(", hasMaterials=").append(materials).append(", result=").append(result).toString();
+        });
         
         return result;
     }
@@ -87,77 +94,92 @@ public class BuildStructureGoal extends Goal {
 
     @Override
     public void start() {
-        ticksStuck = 0;
-        System.out.println("[BuildStructureGoal] Starting build goal for builder #" + builder.getId());
+        repathDelay = 0;
+        lastPos = builder.position();
+        Diagnostics.debug(DiagCategory.AI, builder, () -> "Starting build goal");
     }
     
-    private void clearBuildArea() {
-        com.nothomealone.structure.BuildTask task = builder.getCurrentTask();
-        if (task == null) return;
-        
-        // Get all block positions from the task WITHOUT consuming steps
-        java.util.List<com.nothomealone.structure.BuildTask.BuildStep> allSteps = task.getAllSteps();
-        int cleared = 0;
-        
-        for (com.nothomealone.structure.BuildTask.BuildStep step : allSteps) {
-            net.minecraft.core.BlockPos pos = step.pos;
-            net.minecraft.world.level.block.state.BlockState currentState = builder.level().getBlockState(pos);
-            
-            // Remove vegetation and replaceable blocks
-            if (currentState.is(net.minecraft.tags.BlockTags.REPLACEABLE) ||
-                currentState.is(net.minecraft.world.level.block.Blocks.GRASS) ||
-                currentState.is(net.minecraft.world.level.block.Blocks.TALL_GRASS) ||
-                currentState.is(net.minecraft.world.level.block.Blocks.FERN) ||
-                currentState.is(net.minecraft.world.level.block.Blocks.LARGE_FERN) ||
-                currentState.is(net.minecraft.tags.BlockTags.FLOWERS) ||
-                currentState.is(net.minecraft.tags.BlockTags.SMALL_FLOWERS)) {
-                builder.level().destroyBlock(pos, true);
-                cleared++;
-            }
-        }
-        System.out.println("[BuildStructureGoal] Cleared " + cleared + " blocks from build area");
-    }
-
     @Override
     public void tick() {
         // Perform building work every tick
         builder.performWork();
         
+        net.minecraft.world.phys.Vec3 currentPos = builder.position();
+        if (lastPos != null) {
+            builder.recordBuildDistance(currentPos.distanceTo(lastPos));
+        }
+        lastPos = currentPos;
+        
         // Get current task to check if we need to navigate
         com.nothomealone.structure.BuildTask task = builder.getCurrentTask();
         if (task != null && !task.isCompleted()) {
             com.nothomealone.structure.BuildTask.BuildStep nextStep = task.getNextStep();
             if (nextStep != null) {
-                BlockPos target = nextStep.pos;
-                
-                // Check if we're close enough to build (within 2 blocks)
-                if (builder.blockPosition().distSqr(target) > 4) { // More than 2 blocks away
-                    // Navigate closer to build position
-                    if (path == null || ticksStuck > 40 || builder.getNavigation().isDone()) {
-                        path = builder.getNavigation().createPath(target, 1);
-                        ticksStuck = 0;
+                // Plan the next standing spot once the builder is through the current cluster
+                if (cluster == null || clusterTask != task || !cluster.covers(nextStep.index())) {
+                    cluster = StandingPlanner.plan(builder.level(), task, com.nothomealone.Config.builderReach);
+                    clusterTask = task;
+                    // A path to the previous spot is of no use any more
+                    if (path != null) {
+                        builder.getNavigation().stop();
                     }
-                    
+                    path = null;
+                    repathDelay = 0;
+                    if (cluster == null) return;
+                    final StandingPlanner.Cluster planned = cluster;
+                    Diagnostics.trace(DiagCategory.AI, builder, () -> "Planned standing spot " + planned.stand()
+                        + " for steps " + planned.start() + "-" + planned.end());
+                }
+                
+                long target = nextStep.posLong();
+                int reach = com.nothomealone.Config.builderReach;
+                if (path != null && !builder.getNavigation().isDone()) {
+                    // Keep walking to the standing spot; performWork places the steps in reach on the way
+                } else if (distSqr(builder.blockPosition(), target) > (double) reach * reach) {
                     if (path != null) {
-                        builder.getNavigation().moveTo(path, 1.0);
-                        
-                        // Check if stuck
-                        if (builder.getNavigation().isDone() && builder.blockPosition().distSqr(target) > 4) {
-                            ticksStuck++;
+                        // The path ended without getting the step in reach: stuck, wait before trying again
+                        path = null;
+                        repathDelay = REPATH_DELAY;
+                    }
+                    // Path once per cluster; only compute a new path after a failed or stuck one
+                    if (repathDelay > 0) {
+                        repathDelay--;
+                    } else {
+                        path = builder.getNavigation().createPath(cluster.stand(), cluster.accuracy());
+                        builder.recordBuildPath();
+                        if (path == null && cluster.accuracy() == 0) {
+                            // The planned spot cannot be reached, walk up to the step instead
+                            path = builder.getNavigation().createPath(nextStep.pos(), Math.max(1, reach - 2));
+                            builder.recordBuildPath();
+                        }
+                        if (path != null) {
+                            builder.getNavigation().moveTo(path, 1.0);
+                        } else {
+                            repathDelay = REPATH_DELAY;
                         }
                     }
-                } else {
-                    // Close enough, stop moving and let performWork handle placement
-                    builder.getNavigation().stop();
                 }
             }
         }
     }
 
+    /**
+     * Squared distance from a position to a packed position, without unpacking it into a BlockPos.
+     */
+    private static double distSqr(BlockPos from, long to) {
+        double dx = from.getX() - BlockPos.getX(to);
+        double dy = from.getY() - BlockPos.getY(to);
+        double dz = from.getZ() - BlockPos.getZ(to);
+        return dx * dx + dy * dy + dz * dz;
+    }
+
     @Override
     public void stop() {
         currentStep = null;
         path = null;
-        ticksStuck = 0;
+        lastPos = null;
+        repathDelay = 0;
+        cluster = null;
+        clusterTask = null;
     }
 }
@@ -1,14 +1,18 @@
 package com.nothomealone.entity.ai;
 
 import com.nothomealone.block.entity.StationBlockEntity;
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
 import com.nothomealone.entity.custom.BuilderEntity;
+import com.nothomealone.inventory.ItemTransfer;
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.NonNullList;
 import net.minecraft.world.entity.ai.goal.Goal;
-import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.level.block.entity.BlockEntity;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 
 /**
  * AI Goal for Builder to return to station and collect materials.
@@ -17,6 +21,8 @@ public class CollectMaterialsGoal extends Goal {
     private final BuilderEntity builder;
     private boolean collecting = false;
     private int collectTimer = 0;
+    // Also keyed by the station contents, so a trip that found nothing is not repeated until they change
+    private final DecisionCache decision = new DecisionCache(100);
 
     public CollectMaterialsGoal(BuilderEntity builder) {
         this.builder = builder;
@@ -33,45 +39,31 @@ public class CollectMaterialsGoal extends Goal {
         BlockPos stationPos = builder.getStationPos();
         if (stationPos == null) return false;
         
+        long gameTime = builder.level().getGameTime();
+        int inventoryVersion = builder.getInventory().getModCount();
+        int stationVersion = builder.getStationContentVersion();
+        if (decision.isFresh(task, inventoryVersion, stationVersion, gameTime)) {
+            return decision.get();
+        }
+        
         // Check if builder is missing the material for THE NEXT BLOCK to place
         com.nothomealone.structure.BuildTask.BuildStep nextStep = task.getNextStep();
-        if (nextStep == null) return false;
+        if (nextStep == null) return decision.store(task, inventoryVersion, stationVersion, gameTime, false);
         
-        net.minecraft.world.level.block.Block requiredBlock = nextStep.state.getBlock();
-        NonNullList<ItemStack> inventory = builder.getInventory();
+        net.minecraft.world.level.block.Block requiredBlock = nextStep.state().getBlock();
         
         // Check if we have at least one of the required block (or compatible block)
-        boolean hasMaterial = false;
-        for (ItemStack stack : inventory) {
-            if (!stack.isEmpty()) {
-                net.minecraft.world.level.block.Block stackBlock = net.minecraft.world.level.block.Block.byItem(stack.getItem());
-                if (stackBlock == requiredBlock || builder.areBlocksCompatible(stackBlock, requiredBlock)) {
-                    hasMaterial = true;
-                    break;
-                }
-            }
-        }
-        
-        // If we have the material, no need to collect/craft
-        if (hasMaterial) {
-            return false;
-        }
-        
-        // If we don't have the material, check if we can craft it
-        boolean canCraft = builder.canCraftBlock(requiredBlock);
+        // (removal and state change steps of an upgrade need none)
+        boolean hasMaterial = !nextStep.needsMaterial(builder.level()) || builder.getInventory().hasCompatible(requiredBlock);
         
-        // We need this goal if we can craft OR need to collect from station
-        boolean needsAction = canCraft || !hasMaterial;
+        // Without the material we go to the station either way: to craft it there or to collect it,
+        // so whether it can be crafted is only worked out once we are there
+        boolean needsAction = !hasMaterial;
         
-        if (builder.tickCount % 40 == 0) {
-            System.out.println("[CollectMaterialsGoal] Builder #" + builder.getId() + " canUse check:");
-            System.out.println("  nextBlock=" + requiredBlock.getName().getString());
-            System.out.println("  hasMaterial=" + hasMaterial);
-            System.out.println("  canCraft=" + canCraft);
-            System.out.println("  needsAction=" + needsAction);
-        }
+        Diagnostics.trace(DiagCategory.AI, builder, () -> "CollectMaterialsGoal canUse: nextBlock=" + requiredBlock.getName().getString()
+            + ", hasMaterial=" + hasMaterial + ", needsAction=" + needsAction);
         
-        return needsAction;
+        return decision.store(task, inventoryVersion, stationVersion, gameTime, needsAction);
     }
 
     @Override
@@ -104,6 +96,7 @@ public class CollectMaterialsGoal extends Goal {
                 craftMissingMaterials();
                 // Then transfer remaining needed materials from station
                 transferMaterials(stationEntity);
+                rememberEmptyTrip(stationEntity);
             }
             collecting = false;
         }
@@ -117,46 +110,47 @@ public class CollectMaterialsGoal extends Goal {
         collectTimer = 0;
     }
 
+    /**
+     * If the trip did not get the next material, waits (instead of coming back right away)
+     * until the station contents or the builder inventory change.
+     */
+    private void rememberEmptyTrip(StationBlockEntity station) {
+        com.nothomealone.structure.BuildTask task = builder.getCurrentTask();
+        if (task == null) return;
+        com.nothomealone.structure.BuildTask.BuildStep nextStep = task.getNextStep();
+        if (nextStep == null || builder.getInventory().hasCompatible(nextStep.state().getBlock())) return;
+        
+        decision.store(task, builder.getInventory().getModCount(), station.getContentVersion(), builder.level().getGameTime(), false);
+    }
+
     /**
      * Transfers materials from station to builder inventory.
      * Builder takes ALL materials needed for building, not just 16.
      */
     private void transferMaterials(StationBlockEntity station) {
-        NonNullList<ItemStack> stationInventory = station.getCraftingMaterials();
         com.nothomealone.structure.BuildTask task = builder.getCurrentTask();
         if (task == null) return;
         
-        // Get all required materials for the build
-        java.util.Map<net.minecraft.world.level.block.Block, Integer> requiredMaterials = task.getRequiredMaterials();
-        
-        int transferred = 0;
-        for (int i = 0; i < stationInventory.size(); i++) {
-            ItemStack stationStack = stationInventory.get(i);
-            if (!stationStack.isEmpty()) {
-                net.minecraft.world.level.block.Block block = net.minecraft.world.level.block.Block.byItem(stationStack.getItem());
-                
-                // Check if this material is needed for building (exact match or compatible)
-                boolean isNeeded = false;
-                for (net.minecraft.world.level.block.Block requiredBlock : requiredMaterials.keySet()) {
-                    if (block == requiredBlock || builder.areBlocksCompatible(block, requiredBlock)) {
-                        isNeeded = true;
-                        break;
-                    }
-                }
-                
-                if (isNeeded) {
-                    // Take entire stack (not just 16!)
-                    ItemStack toTransfer = stationStack.copy();
-                    builder.addToInventory(toTransfer);
-                    station.setItem(i, ItemStack.EMPTY);
-                    transferred++;
-                }
+        // Pick the stored items needed for building (exact match or compatible)
+        List<Item> needed = new ArrayList<>();
+        for (Item item : station.getStoredItems()) {
+            net.minecraft.world.level.block.Block block = net.minecraft.world.level.block.Block.byItem(item);
+            if (task.needsCompatible(block)) {
+                needed.add(item);
             }
         }
+        if (needed.isEmpty()) return;
+        
+        // Take entire stacks (not just 16!)
+        ItemTransfer transfer = ItemTransfer.between(station, builder.getInventory());
+        for (int slot : station.slotsOf(needed)) {
+            transfer.move(slot);
+        }
+        ItemTransfer.Result result = transfer.commit();
         
         // Only log if something was actually transferred
-        if (transferred > 0) {
-            System.out.println("[CollectMaterialsGoal] Transferred " + transferred + " item stacks to builder");
+        if (result.stacks() > 0) {
+            Diagnostics.debug(DiagCategory.INVENTORY, builder, () -> "Transferred " + result.stacks() + " item stacks to builder");
         }
     }
     
@@ -167,31 +161,25 @@ public class CollectMaterialsGoal extends Goal {
         com.nothomealone.structure.BuildTask task = builder.getCurrentTask();
         if (task == null) return;
         
-        // Get next building step to see what we need
+        // Get next building step to see what we need (removal steps need nothing)
         com.nothomealone.structure.BuildTask.BuildStep nextStep = task.getNextStep();
-        if (nextStep == null) return;
+        if (nextStep == null || !nextStep.needsMaterial(builder.level())) return;
         
-        net.minecraft.world.level.block.Block requiredBlock = nextStep.state.getBlock();
-        NonNullList<ItemStack> inventory = builder.getInventory();
+        net.minecraft.world.level.block.Block requiredBlock = nextStep.state().getBlock();
         
         // Check if we already have this material
-        for (ItemStack stack : inventory) {
-            if (!stack.isEmpty()) {
-                net.minecraft.world.level.block.Block stackBlock = net.minecraft.world.level.block.Block.byItem(stack.getItem());
-                if (stackBlock == requiredBlock || builder.areBlocksCompatible(stackBlock, requiredBlock)) {
-                    // Already have it, no need to craft
-                    return;
-                }
-            }
+        if (builder.getInventory().hasCompatible(requiredBlock)) {
+            // Already have it, no need to craft
+            return;
         }
         
         // Don't have it - try to craft it using builder's crafting system
-        System.out.println("[CollectMaterialsGoal] Attempting to craft missing material: " + requiredBlock.getName().getString());
+        Diagnostics.debug(DiagCategory.CRAFTING, builder, () -> "Attempting to craft missing material: " + requiredBlock.getName().getString());
         boolean crafted = builder.craftMissingMaterial(requiredBlock);
         if (crafted) {
-            System.out.println("[CollectMaterialsGoal] Successfully crafted material!");
+            Diagnostics.debug(DiagCategory.CRAFTING, builder, () -> "Successfully crafted material!");
         } else {
-            System.out.println("[CollectMaterialsGoal] Could not craft material (will collect from station instead)");
+            Diagnostics.debug(DiagCategory.CRAFTING, builder, () -> "Could not craft material (will collect from station instead)");
         }
     }
 }
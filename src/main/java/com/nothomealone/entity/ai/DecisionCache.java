@@ -0,0 +1,69 @@
+package com.nothomealone.entity.ai;
+
+import com.nothomealone.structure.BlockCompatibility;
+import com.nothomealone.structure.BuildTask;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Remembers a goal's last canUse decision together with the versions of the state it was based on
+ * (task, builder inventory, station contents, compatibility table).
+ * The decision is reused until one of those versions changes or the timeout expires, so a builder
+ * that is idle or waiting does not rescan its inventory and task every time its goals are polled.
+ * The timeout catches changes that carry no version, like tool damage or the builder moving.
+ */
+class DecisionCache {
+    private final int timeout;
+    private boolean valid = false;
+    private boolean decision;
+    private BuildTask task;
+    private int taskVersion;
+    private int inventoryVersion;
+    private int stationVersion;
+    private int compatibilityVersion;
+    private long expiresAt;
+
+    /**
+     * @param timeout Ticks after which a decision is recomputed even if nothing changed
+     */
+    DecisionCache(int timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Checks if the stored decision still holds for the given state.
+     * @param stationVersion The station content version, or -1 if the goal does not depend on the station
+     */
+    boolean isFresh(@Nullable BuildTask task, int inventoryVersion, int stationVersion, long gameTime) {
+        return valid
+            && gameTime < expiresAt
+            && this.task == task
+            && (task == null || this.taskVersion == task.getModCount())
+            && this.inventoryVersion == inventoryVersion
+            && this.stationVersion == stationVersion
+            && this.compatibilityVersion == BlockCompatibility.getVersion();
+    }
+
+    boolean get() {
+        return decision;
+    }
+
+    /**
+     * Stores a freshly computed decision.
+     * @return The decision
+     */
+    boolean store(@Nullable BuildTask task, int inventoryVersion, int stationVersion, long gameTime, boolean decision) {
+        this.task = task;
+        this.taskVersion = task == null ? 0 : task.getModCount();
+        this.inventoryVersion = inventoryVersion;
+        this.stationVersion = stationVersion;
+        this.compatibilityVersion = BlockCompatibility.getVersion();
+        this.expiresAt = gameTime + timeout;
+        this.decision = decision;
+        this.valid = true;
+        return decision;
+    }
+
+    void invalidate() {
+        valid = false;
+    }
+}
@@ -1,5 +1,7 @@
 package com.nothomealone.entity.ai;
 
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
 import com.nothomealone.entity.custom.BuilderEntity;
 import net.minecraft.world.entity.ai.goal.Goal;
 import net.minecraft.world.entity.item.ItemEntity;
@@ -82,7 +84,7 @@ public class PickupItemsGoal extends Goal {
             ItemStack itemStack = targetItem.getItem();
             builder.addToInventory(itemStack.copy());
             targetItem.discard();
-            System.out.println("[PickupItemsGoal] Builder picked up: " + itemStack.getCount() + "x " + itemStack.getHoverName().getString());
+            Diagnostics.debug(DiagCategory.INVENTORY, builder, () -> "Picked up: " + itemStack.getCount() + "x " + itemStack.getHoverName().getString());
             stop();
         }
     }
@@ -1,14 +1,20 @@
 package com.nothomealone.entity.ai;
 
 import com.nothomealone.block.entity.StationBlockEntity;
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
 import com.nothomealone.entity.custom.BuilderEntity;
+import com.nothomealone.inventory.BuilderInventory;
+import com.nothomealone.inventory.ItemTransfer;
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.NonNullList;
 import net.minecraft.world.entity.ai.goal.Goal;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.block.entity.BlockEntity;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 
 /**
  * AI Goal for Builder to replace broken/damaged tools from station.
@@ -17,6 +23,8 @@ public class ReplaceToolsGoal extends Goal {
     private final BuilderEntity builder;
     private boolean fetching = false;
     private int fetchTimer = 0;
+    // Tool damage changes no inventory version, so wear is picked up by the timeout
+    private final DecisionCache decision = new DecisionCache(200);
 
     public ReplaceToolsGoal(BuilderEntity builder) {
         this.builder = builder;
@@ -28,8 +36,14 @@ public class ReplaceToolsGoal extends Goal {
         BlockPos stationPos = builder.getStationPos();
         if (stationPos == null) return false;
         
+        long gameTime = builder.level().getGameTime();
+        int inventoryVersion = builder.getInventory().getModCount();
+        if (decision.isFresh(null, inventoryVersion, -1, gameTime)) {
+            return decision.get();
+        }
+        
         // Check if builder has damaged or missing tools
-        return needsTools();
+        return decision.store(null, inventoryVersion, -1, gameTime, needsTools());
     }
 
     @Override
@@ -76,13 +90,14 @@ public class ReplaceToolsGoal extends Goal {
      * Checks if builder needs new tools (damaged or missing).
      */
     private boolean needsTools() {
-        NonNullList<ItemStack> inventory = builder.getInventory();
+        BuilderInventory inventory = builder.getInventory();
         
         boolean hasPickaxe = false;
         boolean hasAxe = false;
         boolean hasShovel = false;
         
-        for (ItemStack stack : inventory) {
+        for (int i = 0; i < inventory.getContainerSize(); i++) {
+            ItemStack stack = inventory.peekItem(i);
             if (stack.isEmpty()) continue;
             
             if (stack.getItem() instanceof net.minecraft.world.item.PickaxeItem) {
@@ -106,66 +121,61 @@ public class ReplaceToolsGoal extends Goal {
 
     /**
      * Fetches tools from station to replace damaged ones.
+     * Worn tools in the station are left alone, and a replaced damaged tool is discarded.
      */
     private void fetchTools(StationBlockEntity station) {
-        NonNullList<ItemStack> stationInventory = station.getCraftingMaterials();
-        NonNullList<ItemStack> builderInventory = builder.getInventory();
+        BuilderInventory builderInventory = builder.getInventory();
+        ItemTransfer transfer = ItemTransfer.between(station, builderInventory);
+        // Tool types already handled by this transfer (the inventory only changes on commit)
+        List<Class<?>> taken = new ArrayList<>();
         
-        int fetched = 0;
+        List<Item> tools = new ArrayList<>();
+        for (Item item : station.getStoredItems()) {
+            if (isTool(item.getDefaultInstance())) {
+                tools.add(item);
+            }
+        }
         
-        for (int i = 0; i < stationInventory.size(); i++) {
-            ItemStack stationStack = stationInventory.get(i);
-            if (stationStack.isEmpty()) continue;
+        for (int i : station.slotsOf(tools)) {
+            ItemStack stationStack = station.peekItem(i);
+            if (isWorn(stationStack)) continue;
             
-            // Check if this is a tool
-            if (isTool(stationStack)) {
-                // Find damaged or missing tool slot in builder inventory
-                boolean shouldTake = false;
-                int replacementSlot = -1;
-                
-                if (stationStack.getItem() instanceof net.minecraft.world.item.PickaxeItem) {
-                    replacementSlot = findDamagedToolSlot(builderInventory, net.minecraft.world.item.PickaxeItem.class);
-                    shouldTake = replacementSlot != -1 || !hasToolType(builderInventory, net.minecraft.world.item.PickaxeItem.class);
-                } else if (stationStack.getItem() instanceof net.minecraft.world.item.AxeItem) {
-                    replacementSlot = findDamagedToolSlot(builderInventory, net.minecraft.world.item.AxeItem.class);
-                    shouldTake = replacementSlot != -1 || !hasToolType(builderInventory, net.minecraft.world.item.AxeItem.class);
-                } else if (stationStack.getItem() instanceof net.minecraft.world.item.ShovelItem) {
-                    replacementSlot = findDamagedToolSlot(builderInventory, net.minecraft.world.item.ShovelItem.class);
-                    shouldTake = replacementSlot != -1 || !hasToolType(builderInventory, net.minecraft.world.item.ShovelItem.class);
-                }
-                
-                if (shouldTake) {
-                    ItemStack toTransfer = stationStack.copy();
-                    
-                    // Replace damaged tool or add to inventory
-                    if (replacementSlot != -1) {
-                        builderInventory.set(replacementSlot, toTransfer);
-                    } else {
-                        builder.addToInventory(toTransfer);
-                    }
-                    
-                    station.setItem(i, ItemStack.EMPTY);
-                    fetched++;
-                    System.out.println("[ReplaceToolsGoal] Fetched tool: " + toTransfer.getHoverName().getString());
-                }
+            // Find damaged or missing tool slot in builder inventory
+            Class<?> toolClass = null;
+            if (stationStack.getItem() instanceof net.minecraft.world.item.PickaxeItem) {
+                toolClass = net.minecraft.world.item.PickaxeItem.class;
+            } else if (stationStack.getItem() instanceof net.minecraft.world.item.AxeItem) {
+                toolClass = net.minecraft.world.item.AxeItem.class;
+            } else if (stationStack.getItem() instanceof net.minecraft.world.item.ShovelItem) {
+                toolClass = net.minecraft.world.item.ShovelItem.class;
             }
+            if (toolClass == null || taken.contains(toolClass)) continue;
+            
+            int replacementSlot = findDamagedToolSlot(builderInventory, toolClass);
+            if (replacementSlot != -1) {
+                transfer.replace(i, replacementSlot);
+            } else if (!hasToolType(builderInventory, toolClass)) {
+                transfer.move(i);
+            } else {
+                continue;
+            }
+            taken.add(toolClass);
+            Diagnostics.debug(DiagCategory.INVENTORY, builder, () -> "Fetched tool: " + stationStack.getHoverName().getString());
         }
         
-        if (fetched > 0) {
-            station.setChanged();
-        }
+        transfer.commit();
     }
 
     /**
      * Finds a slot with a damaged tool of the given type.
      */
-    private int findDamagedToolSlot(NonNullList<ItemStack> inventory, Class<?> toolClass) {
-        for (int i = 0; i < inventory.size(); i++) {
-            ItemStack stack = inventory.get(i);
+    private int findDamagedToolSlot(BuilderInventory inventory, Class<?> toolClass) {
+        for (int i = 0; i < inventory.getContainerSize(); i++) {
+            ItemStack stack = inventory.peekItem(i);
             if (stack.isEmpty()) continue;
             
             if (toolClass.isInstance(stack.getItem())) {
-                if (stack.isDamageableItem() && stack.getDamageValue() >= stack.getMaxDamage() * 0.8) {
+                if (isWorn(stack)) {
                     return i; // Damaged tool found
                 }
             }
@@ -173,11 +183,19 @@ public class ReplaceToolsGoal extends Goal {
         return -1;
     }
 
+    /**
+     * Checks if a tool has less than 20% durability left.
+     */
+    private static boolean isWorn(ItemStack stack) {
+        return stack.isDamageableItem() && stack.getDamageValue() >= stack.getMaxDamage() * 0.8;
+    }
+
     /**
      * Checks if inventory has a tool of the given type.
      */
-    private boolean hasToolType(NonNullList<ItemStack> inventory, Class<?> toolClass) {
-        for (ItemStack stack : inventory) {
+    private boolean hasToolType(BuilderInventory inventory, Class<?> toolClass) {
+        for (int i = 0; i < inventory.getContainerSize(); i++) {
+            ItemStack stack = inventory.peekItem(i);
             if (!stack.isEmpty() && toolClass.isInstance(stack.getItem())) {
                 return true;
             }
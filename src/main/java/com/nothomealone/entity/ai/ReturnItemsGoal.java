@@ -1,16 +1,18 @@
 package com.nothomealone.entity.ai;
 
 import com.nothomealone.block.entity.StationBlockEntity;
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
 import com.nothomealone.entity.custom.BuilderEntity;
+import com.nothomealone.inventory.BuilderInventory;
+import com.nothomealone.inventory.ItemTransfer;
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.NonNullList;
 import net.minecraft.world.entity.ai.goal.Goal;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.entity.BlockEntity;
 
 import java.util.EnumSet;
-import java.util.Map;
 
 /**
  * AI Goal for Builder to return unnecessary items to the station.
@@ -20,6 +22,8 @@ public class ReturnItemsGoal extends Goal {
     private final BuilderEntity builder;
     private boolean returning = false;
     private int returnTimer = 0;
+    // Depends on the task and the builder inventory only
+    private final DecisionCache decision = new DecisionCache(100);
 
     public ReturnItemsGoal(BuilderEntity builder) {
         this.builder = builder;
@@ -31,18 +35,18 @@ public class ReturnItemsGoal extends Goal {
         com.nothomealone.structure.BuildTask task = builder.getCurrentTask();
         BlockPos stationPos = builder.getStationPos();
         if (stationPos == null) return false;
+        if (task == null) return false;
         
-        // If task is completed, return ALL items except tools
-        if (task != null && task.isCompleted()) {
-            return hasAnyNonToolItems();
+        long gameTime = builder.level().getGameTime();
+        int inventoryVersion = builder.getInventory().getModCount();
+        if (decision.isFresh(task, inventoryVersion, -1, gameTime)) {
+            return decision.get();
         }
         
-        // If task is active, only return items that are not needed
-        if (task != null) {
-            return hasUnnecessaryItems(task);
-        }
-        
-        return false;
+        // If task is completed, return ALL items except tools,
+        // if it is active, only return items that are not needed
+        boolean result = task.isCompleted() ? hasAnyNonToolItems() : hasUnnecessaryItems(task);
+        return decision.store(task, inventoryVersion, -1, gameTime, result);
     }
 
     @Override
@@ -89,10 +93,9 @@ public class ReturnItemsGoal extends Goal {
      * Check if builder has any items that are not tools and not needed for building.
      */
     private boolean hasUnnecessaryItems(com.nothomealone.structure.BuildTask task) {
-        NonNullList<ItemStack> inventory = builder.getInventory();
-        Map<Block, Integer> requiredMaterials = task.getRequiredMaterials();
-        
-        for (ItemStack stack : inventory) {
+        BuilderInventory inventory = builder.getInventory();
+        for (int i = 0; i < inventory.getContainerSize(); i++) {
+            ItemStack stack = inventory.peekItem(i);
             if (stack.isEmpty()) continue;
             
             // Keep tools
@@ -100,15 +103,7 @@ public class ReturnItemsGoal extends Goal {
             
             // Check if this is a required building material (exact match or compatible)
             Block block = Block.byItem(stack.getItem());
-            boolean isNeeded = false;
-            for (Block requiredBlock : requiredMaterials.keySet()) {
-                if (block == requiredBlock || builder.areBlocksCompatible(block, requiredBlock)) {
-                    isNeeded = true;
-                    break;
-                }
-            }
-            
-            if (!isNeeded) {
+            if (!task.needsCompatible(block)) {
                 return true; // Found an unnecessary item
             }
         }
@@ -120,9 +115,10 @@ public class ReturnItemsGoal extends Goal {
      * Check if builder has any non-tool items (for after task completion).
      */
     private boolean hasAnyNonToolItems() {
-        NonNullList<ItemStack> inventory = builder.getInventory();
+        BuilderInventory inventory = builder.getInventory();
         
-        for (ItemStack stack : inventory) {
+        for (int i = 0; i < inventory.getContainerSize(); i++) {
+            ItemStack stack = inventory.peekItem(i);
             if (stack.isEmpty()) continue;
             if (isTool(stack)) continue;
             return true; // Found a non-tool item
@@ -135,17 +131,15 @@ public class ReturnItemsGoal extends Goal {
      * Returns all unnecessary items to the station.
      */
     private void returnUnnecessaryItems(StationBlockEntity station) {
-        NonNullList<ItemStack> builderInventory = builder.getInventory();
-        NonNullList<ItemStack> stationInventory = station.getCraftingMaterials();
+        BuilderInventory builderInventory = builder.getInventory();
         com.nothomealone.structure.BuildTask task = builder.getCurrentTask();
         
         // If task is completed, return ALL non-tool items
         boolean taskCompleted = (task != null && task.isCompleted());
-        Map<Block, Integer> requiredMaterials = taskCompleted ? null : task.getRequiredMaterials();
         
-        int returned = 0;
-        for (int i = 0; i < builderInventory.size(); i++) {
-            ItemStack builderStack = builderInventory.get(i);
+        ItemTransfer transfer = ItemTransfer.between(builderInventory, station);
+        for (int i = 0; i < builderInventory.getContainerSize(); i++) {
+            ItemStack builderStack = builderInventory.peekItem(i);
             if (builderStack.isEmpty()) continue;
             
             // Keep tools
@@ -156,34 +150,24 @@ public class ReturnItemsGoal extends Goal {
             if (taskCompleted) {
                 // Task completed: return everything that's not a tool
                 shouldReturn = true;
-            } else if (requiredMaterials != null) {
+            } else if (task != null) {
                 // Task active: only return items not needed for building (check compatibility)
                 Block block = Block.byItem(builderStack.getItem());
-                boolean isNeeded = false;
-                for (Block requiredBlock : requiredMaterials.keySet()) {
-                    if (block == requiredBlock || builder.areBlocksCompatible(block, requiredBlock)) {
-                        isNeeded = true;
-                        break;
-                    }
-                }
-                shouldReturn = !isNeeded;
+                shouldReturn = !task.needsCompatible(block);
             }
             
             if (shouldReturn) {
-                // Return this item to station
-                if (addToStation(stationInventory, builderStack)) {
-                    builderInventory.set(i, ItemStack.EMPTY);
-                    returned++;
-                }
+                transfer.move(i);
             }
         }
         
+        // Whatever does not fit in the station stays with the builder
+        int returned = transfer.commit().stacks();
         if (returned > 0) {
-            station.setChanged();
             if (taskCompleted) {
-                System.out.println("[ReturnItemsGoal] Task completed! Returned " + returned + " item stacks to station");
+                Diagnostics.debug(DiagCategory.INVENTORY, builder, () -> "Task completed! Returned " + returned + " item stacks to station");
             } else {
-                System.out.println("[ReturnItemsGoal] Returned " + returned + " unnecessary item stacks to station");
+                Diagnostics.debug(DiagCategory.INVENTORY, builder, () -> "Returned " + returned + " unnecessary item stacks to station");
             }
         }
     }
@@ -200,36 +184,4 @@ public class ReturnItemsGoal extends Goal {
                stack.getItem() instanceof net.minecraft.world.item.FishingRodItem ||
                stack.getItem() instanceof net.minecraft.world.item.ShearsItem;
     }
-
-    /**
-     * Adds an item stack to the station inventory.
-     */
-    private boolean addToStation(NonNullList<ItemStack> stationInventory, ItemStack toAdd) {
-        // Try to merge with existing stacks first
-        for (int i = 0; i < stationInventory.size(); i++) {
-            ItemStack stationStack = stationInventory.get(i);
-            if (stationStack.isEmpty()) continue;
-            
-            if (ItemStack.isSameItemSameTags(stationStack, toAdd)) {
-                int maxSize = Math.min(stationStack.getMaxStackSize(), 64);
-                int canAdd = maxSize - stationStack.getCount();
-                if (canAdd > 0) {
-                    int toTransfer = Math.min(canAdd, toAdd.getCount());
-                    stationStack.grow(toTransfer);
-                    toAdd.shrink(toTransfer);
-                    if (toAdd.isEmpty()) return true;
-                }
-            }
-        }
-        
-        // Find empty slot
-        for (int i = 0; i < stationInventory.size(); i++) {
-            if (stationInventory.get(i).isEmpty()) {
-                stationInventory.set(i, toAdd.copy());
-                return true;
-            }
-        }
-        
-        return false; // No space
-    }
 }
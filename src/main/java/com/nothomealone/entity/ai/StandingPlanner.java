@@ -0,0 +1,128 @@
+package com.nothomealone.entity.ai;
+
+import com.nothomealone.structure.BuildTask;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Plans where a builder stands while it works through the next steps of its task.
+ * Upcoming steps are grouped into a cluster that fits around one standing spot within reach,
+ * and a free spot to stand on is searched near the middle of the cluster. The builder paths
+ * there once and places the whole cluster without moving.
+ */
+final class StandingPlanner {
+    /** Most steps in one cluster, so a plan never looks far ahead of the world state */
+    private static final int MAX_CLUSTER = 64;
+
+    private StandingPlanner() {
+    }
+
+    /**
+     * Steps [start, end) of a task that can all be built from {@code stand}.
+     * @param accuracy How close the builder has to get to {@code stand} (0 for a planned spot)
+     */
+    record Cluster(BlockPos stand, int accuracy, int start, int end) {
+        boolean covers(int stepIndex) {
+            return stepIndex >= start && stepIndex < end;
+        }
+    }
+
+    /**
+     * Plans the cluster starting at the task's current step.
+     * @param reach Reach of the builder in blocks
+     * @return The cluster, or null if the task has no steps left
+     */
+    @Nullable
+    static Cluster plan(Level level, BuildTask task, int reach) {
+        int start = task.getCurrentStepIndex();
+        int size = task.getTotalSteps();
+        if (start >= size) return null;
+
+        // One block of margin, so the builder still reaches everything if it stops next to the spot
+        int planReach = Math.max(1, reach - 1);
+        long reachSqr = (long) planReach * planReach;
+
+        // Grow the cluster while its bounding box still fits around a single spot
+        long first = task.getStepPos(start);
+        int minX = BlockPos.getX(first), maxX = minX;
+        int minY = BlockPos.getY(first), maxY = minY;
+        int minZ = BlockPos.getZ(first), maxZ = minZ;
+        int end = start + 1;
+        while (end < size && end - start < MAX_CLUSTER) {
+            long pos = task.getStepPos(end);
+            int nMinX = Math.min(minX, BlockPos.getX(pos)), nMaxX = Math.max(maxX, BlockPos.getX(pos));
+            int nMinY = Math.min(minY, BlockPos.getY(pos)), nMaxY = Math.max(maxY, BlockPos.getY(pos));
+            int nMinZ = Math.min(minZ, BlockPos.getZ(pos)), nMaxZ = Math.max(maxZ, BlockPos.getZ(pos));
+            // Half extents of the box, rounded up; the spot stands in its middle
+            long hx = (nMaxX - nMinX + 1) / 2, hy = (nMaxY - nMinY + 1) / 2 + 1, hz = (nMaxZ - nMinZ + 1) / 2;
+            if (hx * hx + hy * hy + hz * hz > reachSqr) break;
+            minX = nMinX; maxX = nMaxX;
+            minY = nMinY; maxY = nMaxY;
+            minZ = nMinZ; maxZ = nMaxZ;
+            end++;
+        }
+
+        // Nowhere to stand for the cluster: fall back to walking up to the first step itself
+        Cluster fallback = new Cluster(BlockPos.of(first), Math.max(1, reach - 2), start, start + 1);
+        BlockPos stand = findStandingSpot(level, task, start, end, (minX + maxX) >> 1, minY, maxY, (minZ + maxZ) >> 1, planReach);
+        if (stand == null) {
+            return fallback;
+        }
+        // Keep only the leading steps the spot actually covers
+        int covered = start;
+        while (covered < end && stand.distSqr(BlockPos.of(task.getStepPos(covered))) <= reachSqr) {
+            covered++;
+        }
+        if (covered == start) {
+            return fallback;
+        }
+        return new Cluster(stand, 0, start, covered);
+    }
+
+    /**
+     * Searches rings around the cluster center for a spot a builder can stand on that is not
+     * one of the cluster's own steps. Lower spots are tried first, since the layers below are built.
+     */
+    @Nullable
+    private static BlockPos findStandingSpot(Level level, BuildTask task, int start, int end,
+                                             int centerX, int minY, int maxY, int centerZ, int reach) {
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (int radius = 0; radius <= reach; radius++) {
+            for (int y = minY; y <= maxY + 1; y++) {
+                for (int dx = -radius; dx <= radius; dx++) {
+                    for (int dz = -radius; dz <= radius; dz++) {
+                        // Only the ring at this radius
+                        if (Math.max(Math.abs(dx), Math.abs(dz)) != radius) continue;
+                        pos.set(centerX + dx, y, centerZ + dz);
+                        if (canStandAt(level, pos) && !isStep(task, start, end, pos)) {
+                            return pos.immutable();
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean canStandAt(Level level, BlockPos pos) {
+        BlockState feet = level.getBlockState(pos);
+        if (!feet.getCollisionShape(level, pos).isEmpty() || !feet.getFluidState().isEmpty()) return false;
+        BlockPos headPos = pos.above();
+        if (!level.getBlockState(headPos).getCollisionShape(level, headPos).isEmpty()) return false;
+        BlockPos groundPos = pos.below();
+        return level.getBlockState(groundPos).isFaceSturdy(level, groundPos, Direction.UP);
+    }
+
+    private static boolean isStep(BuildTask task, int start, int end, BlockPos pos) {
+        long packed = pos.asLong();
+        long above = pos.above().asLong();
+        for (int i = start; i < end; i++) {
+            long step = task.getStepPos(i);
+            if (step == packed || step == above) return true;
+        }
+        return false;
+    }
+}
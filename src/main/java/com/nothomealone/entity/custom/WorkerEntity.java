@@ -1,5 +1,7 @@
 package com.nothomealone.entity.custom;
 
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.entity.EntityType;
@@ -32,7 +34,7 @@ public abstract class WorkerEntity extends PathfinderMob {
 
     @Override
     protected void registerGoals() {
-        System.out.println("[WorkerEntity] registerGoals() called for " + this.getClass().getSimpleName());
+        Diagnostics.trace(DiagCategory.AI, this, () -> "registerGoals() called for " + this.getClass().getSimpleName());
         this.goalSelector.addGoal(0, new FloatGoal(this));
         this.goalSelector.addGoal(1, new PanicGoal(this, 1.4));
         this.goalSelector.addGoal(5, new WaterAvoidingRandomStrollGoal(this, 1.0));
@@ -40,7 +42,7 @@ public abstract class WorkerEntity extends PathfinderMob {
         this.goalSelector.addGoal(7, new RandomLookAroundGoal(this));
         
         registerWorkerGoals();
-        System.out.println("[WorkerEntity] Goals registered, total goals: " + this.goalSelector.getAvailableGoals().size());
+        Diagnostics.trace(DiagCategory.AI, this, () -> "Goals registered, total goals: " + this.goalSelector.getAvailableGoals().size());
     }
 
     /**
@@ -56,6 +58,9 @@ public abstract class WorkerEntity extends PathfinderMob {
     public void setHomeStation(BlockPos pos, int radius) {
         this.stationPos = pos;
         this.workRadius = radius;
+        if (!level().isClientSide && isAddedToWorld()) {
+            com.nothomealone.entity.WorkerRegistry.register(this);
+        }
     }
 
     /**
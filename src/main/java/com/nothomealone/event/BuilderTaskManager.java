@@ -1,22 +1,29 @@
 package com.nothomealone.event;
 
 import com.nothomealone.NotHomeAlone;
+import com.nothomealone.block.custom.BaseStationBlock;
 import com.nothomealone.block.entity.StationBlockEntity;
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
+import com.nothomealone.entity.WorkerRegistry;
 import com.nothomealone.entity.custom.BuilderEntity;
-import com.nothomealone.structure.BuildTask;
-import com.nothomealone.structure.StructureAnalyzer;
+import com.nothomealone.structure.BuilderManager;
 import net.minecraft.core.BlockPos;
-import net.minecraft.resources.ResourceLocation;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
 import net.minecraftforge.event.TickEvent;
-import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.event.entity.EntityJoinLevelEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * Manages builder task assignment and reassignment.
@@ -25,148 +32,192 @@ import java.util.UUID;
 @Mod.EventBusSubscriber(modid = NotHomeAlone.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public class BuilderTaskManager {
     
-    // Track which stations have active build tasks (station pos -> structure level)
-    private static final Map<BlockPos, String> activeStations = new HashMap<>();
+    // Every station is checked once per CHECK_INTERVAL ticks, in its own tick slot
+    private static final int CHECK_INTERVAL = 100;
+    
+    // Track which stations have active build tasks, keyed by dimension and station pos
+    private static final Map<ResourceKey<Level>, Map<BlockPos, ScheduledStation>> activeStations = new HashMap<>();
+    // Time wheel: slot i holds the stations checked on tick i of the interval
+    private static final List<List<ScheduledStation>> wheel = new ArrayList<>();
     private static int tickCounter = 0;
+    private static int nextSlot = 0;
+    
+    static {
+        for (int i = 0; i < CHECK_INTERVAL; i++) {
+            wheel.add(new ArrayList<>());
+        }
+    }
+    
+    /**
+     * A registered station and the wheel slot it is checked in.
+     */
+    private record ScheduledStation(ResourceKey<Level> dimension, BlockPos pos, String structureLevel, int slot) {}
     
     /**
      * Register a station as having an active build task.
      */
-    public static void registerStation(BlockPos stationPos, String structureLevel) {
-        activeStations.put(stationPos, structureLevel);
-        System.out.println("[BuilderTaskManager] Registered station at " + stationPos + " with structure level " + structureLevel);
+    public static void registerStation(Level level, BlockPos stationPos, String structureLevel) {
+        registerStation(level.dimension(), stationPos, structureLevel);
+    }
+    
+    /**
+     * Register a station as having an active build task.
+     * Stations are handed out round-robin over the wheel slots so each tick checks an even share.
+     */
+    public static void registerStation(ResourceKey<Level> dimension, BlockPos stationPos, String structureLevel) {
+        Map<BlockPos, ScheduledStation> stations = activeStations.computeIfAbsent(dimension, d -> new HashMap<>());
+        ScheduledStation previous = stations.get(stationPos);
+        if (previous != null) {
+            if (previous.structureLevel().equals(structureLevel)) return;
+            wheel.get(previous.slot()).remove(previous);
+        }
+        
+        ScheduledStation station = new ScheduledStation(dimension, stationPos.immutable(), structureLevel, nextSlot);
+        nextSlot = (nextSlot + 1) % CHECK_INTERVAL;
+        stations.put(station.pos(), station);
+        wheel.get(station.slot()).add(station);
+        Diagnostics.debug(DiagCategory.TASKS, null, () -> "Registered station at " + stationPos + " in " + dimension.location() + " with structure level " + structureLevel);
     }
     
     /**
      * Unregister a station (when structure is complete or station destroyed).
      */
-    public static void unregisterStation(BlockPos stationPos) {
-        activeStations.remove(stationPos);
-        System.out.println("[BuilderTaskManager] Unregistered station at " + stationPos);
+    public static void unregisterStation(Level level, BlockPos stationPos) {
+        unregisterStation(level.dimension(), stationPos);
     }
     
     /**
-     * When world loads, scan for all builder stations and register them.
-     * This ensures tasks are reassigned after server restart.
+     * Unregister a station (when structure is complete or station destroyed).
+     */
+    public static void unregisterStation(ResourceKey<Level> dimension, BlockPos stationPos) {
+        Map<BlockPos, ScheduledStation> stations = activeStations.get(dimension);
+        if (stations == null) return;
+        
+        ScheduledStation station = stations.remove(stationPos);
+        if (station != null) {
+            wheel.get(station.slot()).remove(station);
+            Diagnostics.debug(DiagCategory.TASKS, null, () -> "Unregistered station at " + stationPos);
+        }
+        if (stations.isEmpty()) {
+            activeStations.remove(dimension);
+        }
+    }
+    
+    /**
+     * When a builder joins the world (chunk load or server restart), register its station
+     * so its task is checked (or loaded, if it has none) on the station's next check.
+     * A task restored from the builder's save data is used as it is.
      */
     @SubscribeEvent
-    public static void onWorldLoad(LevelEvent.Load event) {
+    public static void onEntityJoin(EntityJoinLevelEvent event) {
         if (!(event.getLevel() instanceof ServerLevel serverLevel)) return;
+        if (!(event.getEntity() instanceof BuilderEntity builder)) return;
         
-        System.out.println("[BuilderTaskManager] Scanning world for builder stations...");
+        BlockPos stationPos = builder.getStationPos();
+        if (stationPos == null) return;
         
-        // Scan all loaded chunks for builder stations and restore tasks
-        serverLevel.getAllEntities().forEach(entity -> {
-            if (entity instanceof BuilderEntity builder) {
-                BlockPos stationPos = builder.getStationPos();
-                if (stationPos != null) {
-                    BlockEntity blockEntity = serverLevel.getBlockEntity(stationPos);
-                    if (blockEntity instanceof StationBlockEntity stationEntity && !stationEntity.isStructureBuilt()) {
-                        // Register this station - assume level 1 for now
-                        // TODO: Store structure level in StationBlockEntity NBT
-                        registerStation(stationPos, "1");
-                        System.out.println("[BuilderTaskManager] Found builder station at " + stationPos);
-                        
-                        // If builder has no task, reassign it immediately with saved progress
-                        if (builder.getCurrentTask() == null) {
-                            // Read saved progress from builder's NBT (already loaded in readAdditionalSaveData)
-                            int savedProgress = builder.getSavedTaskProgress();
-                            System.out.println("[BuilderTaskManager] Restoring task for builder #" + builder.getId() + " with progress: " + savedProgress);
-                            reassignTask(serverLevel, stationPos, "1", builder, savedProgress);
-                        }
-                    }
-                }
-            }
-        });
+        Map<BlockPos, ScheduledStation> stations = activeStations.get(serverLevel.dimension());
+        if (stations == null || !stations.containsKey(stationPos)) {
+            // The station level is stored in its block state; checkStation reads it again once the station is loaded
+            String structureLevel = serverLevel.isLoaded(stationPos) ? structureLevelOf(serverLevel.getBlockState(stationPos)) : "1";
+            registerStation(serverLevel.dimension(), stationPos, structureLevel);
+        }
     }
     
     /**
-     * Every 5 seconds, check all builders and reassign tasks if needed.
+     * Each tick checks one slot of the wheel, so every station is checked every 5 seconds
+     * without checking all of them in the same tick.
      */
     @SubscribeEvent
     public static void onServerTick(TickEvent.ServerTickEvent event) {
         if (event.phase != TickEvent.Phase.END) return;
         
-        tickCounter++;
-        if (tickCounter < 100) return; // Check every 5 seconds (100 ticks)
-        tickCounter = 0;
+        tickCounter = (tickCounter + 1) % CHECK_INTERVAL;
+        List<ScheduledStation> slot = wheel.get(tickCounter);
+        if (slot.isEmpty()) return;
         
-        // Check all registered stations
-        for (Map.Entry<BlockPos, String> entry : activeStations.entrySet()) {
-            BlockPos stationPos = entry.getKey();
-            String structureLevel = entry.getValue();
-            
-            for (ServerLevel level : event.getServer().getAllLevels()) {
-                // Check if station still exists
-                BlockEntity blockEntity = level.getBlockEntity(stationPos);
-                if (!(blockEntity instanceof StationBlockEntity stationEntity)) {
-                    continue;
-                }
-                
-                // Check if structure already built
-                if (stationEntity.isStructureBuilt()) {
-                    unregisterStation(stationPos);
-                    continue;
-                }
-                
-                // Find builder for this station
-                BuilderEntity builder = findBuilderForStation(level, stationPos);
-                if (builder == null) {
-                    System.out.println("[BuilderTaskManager] No builder found for station at " + stationPos);
-                    continue;
-                }
-                
-                // Check if builder has a task (only reassign if truly lost, not if completed)
-                if (builder.getCurrentTask() == null) {
-                    // Try to restore saved progress from NBT
-                    int savedProgress = builder.getSavedTaskProgress();
-                    System.out.println("[BuilderTaskManager] Builder #" + builder.getId() + " lost task, reassigning with saved progress: " + savedProgress);
-                    reassignTask(level, stationPos, structureLevel, builder, savedProgress);
-                } else if (builder.getCurrentTask().isCompleted()) {
-                    System.out.println("[BuilderTaskManager] Builder #" + builder.getId() + " completed task!");
-                    stationEntity.setStructureBuilt(true);
-                    unregisterStation(stationPos);
-                }
-            }
+        // Copy, since checking a station can unregister it
+        for (ScheduledStation station : new ArrayList<>(slot)) {
+            ServerLevel level = event.getServer().getLevel(station.dimension());
+            if (level == null) continue;
+            checkStation(level, station);
         }
     }
     
     /**
-     * Reassigns a build task to a builder.
-     * @param savedProgress If > 0, restores the task to that progress
+     * Forgets all registered stations, so none of them carry over into the next world.
+     * Stations register again as their builders join.
      */
-    private static void reassignTask(ServerLevel level, BlockPos stationPos, String structureLevel, BuilderEntity builder, int savedProgress) {
-        ResourceLocation structureLocation = new ResourceLocation("nothomealone", 
-            "builder/builder_level_" + structureLevel);
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        activeStations.clear();
+        for (List<ScheduledStation> slot : wheel) {
+            slot.clear();
+        }
+        tickCounter = 0;
+        nextSlot = 0;
+    }
+    
+    /**
+     * Checks one station: reassigns a lost task or marks the structure as built.
+     */
+    private static void checkStation(ServerLevel level, ScheduledStation station) {
+        BlockPos stationPos = station.pos();
+        
+        // Never force-load a chunk just to check on its builder
+        if (!level.isLoaded(stationPos)) return;
+        
+        // Check if station still exists
+        BlockEntity blockEntity = level.getBlockEntity(stationPos);
+        if (!(blockEntity instanceof StationBlockEntity stationEntity)) {
+            unregisterStation(level, stationPos);
+            return;
+        }
         
-        try {
-            BuildTask task = StructureAnalyzer.analyzeStructure(level, structureLocation, stationPos);
-            if (task != null) {
-                // Restore progress if we have saved data
-                if (savedProgress > 0) {
-                    task.setCurrentStepIndex(savedProgress);
-                    System.out.println("[BuilderTaskManager] Restored task progress: " + savedProgress + "/" + task.getTotalSteps());
-                }
-                
-                builder.setBuildTask(task);
-                System.out.println("[BuilderTaskManager] Reassigned task with " + task.getTotalSteps() + " steps to builder #" + builder.getId() + " (progress: " + task.getCompletedSteps() + ")");
-            }
-        } catch (Exception e) {
-            System.err.println("[BuilderTaskManager] Failed to reassign task: " + e.getMessage());
+        // Check if structure already built
+        if (stationEntity.isStructureBuilt()) {
+            unregisterStation(level, stationPos);
+            return;
+        }
+        
+        // The block state holds the current level, also for stations registered before it was known
+        String structureLevel = structureLevelOf(stationEntity.getBlockState());
+        
+        // Find builder for this station
+        BuilderEntity builder = findBuilderForStation(level, stationPos);
+        if (builder == null) {
+            Diagnostics.debug(DiagCategory.TASKS, null, () -> "No builder found for station at " + stationPos);
+            return;
+        }
+        
+        // The task may still be loading in the background; the current one (if any) is not for this level
+        if (BuilderManager.isTaskPending(level, stationPos)) return;
+        
+        // Check if builder has a task (only reassign if truly lost, not if completed)
+        if (builder.getCurrentTask() == null) {
+            // Saved tasks are restored with the builder, so this is a new or outdated task;
+            // progress is recovered from the blocks that already stand
+            Diagnostics.info(DiagCategory.TASKS, builder, () -> "Lost task, reassigning");
+            BuilderManager.loadBuildTask(level, stationPos, structureLevel);
+        } else if (builder.getCurrentTask().isCompleted()) {
+            Diagnostics.info(DiagCategory.TASKS, builder, () -> "Completed task!");
+            stationEntity.setBuiltLevel(Integer.parseInt(structureLevel));
+            stationEntity.setStructureBuilt(true);
+            unregisterStation(level, stationPos);
         }
     }
     
+    /**
+     * Gets the level of a station block, which selects its structure.
+     */
+    private static String structureLevelOf(BlockState state) {
+        return state.hasProperty(BaseStationBlock.LEVEL) ? String.valueOf(state.getValue(BaseStationBlock.LEVEL)) : "1";
+    }
+    
     /**
      * Finds the builder entity for a station.
      */
     private static BuilderEntity findBuilderForStation(ServerLevel level, BlockPos stationPos) {
-        for (BuilderEntity builder : level.getEntitiesOfClass(BuilderEntity.class, 
-                new net.minecraft.world.phys.AABB(-30000000, -64, -30000000, 30000000, 320, 30000000))) {
-            BlockPos builderStation = builder.getStationPos();
-            if (builderStation != null && builderStation.equals(stationPos)) {
-                return builder;
-            }
-        }
-        return null;
+        return WorkerRegistry.getWorker(level, stationPos, BuilderEntity.class);
     }
 }
@@ -3,6 +3,9 @@ package com.nothomealone.event;
 import com.nothomealone.NotHomeAlone;
 import com.nothomealone.block.custom.BaseStationBlock;
 import com.nothomealone.block.entity.StationBlockEntity;
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
+import com.nothomealone.entity.WorkerRegistry;
 import com.nothomealone.territory.Territory;
 import com.nothomealone.territory.TerritoryManager;
 import net.minecraft.core.BlockPos;
@@ -12,6 +15,7 @@ import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
 import net.minecraftforge.event.level.BlockEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
@@ -67,15 +71,9 @@ public class StationEventHandler {
 
         // Claim territory
         if (!level.isClientSide) {
-            Territory territory = TerritoryManager.claimTerritory(level, pos, territoryRadius, workRadius);
+            Territory territory = TerritoryManager.claimTerritory(level, pos, stationBlock.getWorkerType(), territoryRadius, workRadius);
             
             if (territory != null) {
-                // Store territory info in block entity
-                BlockEntity blockEntity = level.getBlockEntity(pos);
-                if (blockEntity instanceof StationBlockEntity stationEntity) {
-                    stationEntity.setTerritory(territory.min(), territory.max(), territoryRadius, workRadius);
-                }
-                
                 int territorySize = territoryRadius * 2;
                 int workArea = workRadius * 2;
                 
@@ -85,53 +83,69 @@ public class StationEventHandler {
                     true
                 );
 
-                System.out.println("[NotHomeAlone] Attempting to spawn " + stationBlock.getWorkerType() + " at " + pos);
-                
-                // Spawn NPC worker
-                boolean spawned = spawnWorker(level, pos, stationBlock.getWorkerType(), workRadius);
+                boolean spawned = activateStation(level, pos, event.getPlacedBlock(), territory);
                 
                 if (spawned) {
-                    System.out.println("[NotHomeAlone] Successfully spawned " + stationBlock.getWorkerType());
                     player.displayClientMessage(
                         Component.literal("§e" + stationBlock.getWorkerType() + " spawned!"),
                         false
                     );
                 } else {
-                    System.out.println("[NotHomeAlone] Failed to spawn " + stationBlock.getWorkerType());
                     player.displayClientMessage(
                         Component.literal("§cFailed to spawn " + stationBlock.getWorkerType()),
                         false
                     );
                 }
-                
-                // If Builder station, initialize build task
-                System.out.println("[StationEventHandler] Checking if builder station: " + stationBlock.getWorkerType());
-                if ("builder".equalsIgnoreCase(stationBlock.getWorkerType())) {
-                    int stationLevel = event.getPlacedBlock().getValue(BaseStationBlock.LEVEL);
-                    System.out.println("[StationEventHandler] IS BUILDER! Calling initializeBuildTask with level " + stationLevel);
-                    com.nothomealone.structure.BuilderManager.initializeBuildTask(level, pos, String.valueOf(stationLevel));
-                    // Register in task manager for automatic reassignment
-                    BuilderTaskManager.registerStation(pos, String.valueOf(stationLevel));
-                } else {
-                    System.out.println("[StationEventHandler] NOT a builder station");
-                }
             }
         }
     }
     
+    /**
+     * Brings a placed station with a claimed territory to life: stores the territory in the
+     * station, spawns its worker and, for builder stations, starts the build task.
+     * Used by station placement and by the GameTests, which place stations without a player.
+     * @return true if the worker was spawned (or already existed)
+     */
+    public static boolean activateStation(Level level, BlockPos pos, BlockState state, Territory territory) {
+        if (!(state.getBlock() instanceof BaseStationBlock stationBlock)) {
+            return false;
+        }
+        
+        // Store territory info in block entity
+        BlockEntity blockEntity = level.getBlockEntity(pos);
+        if (blockEntity instanceof StationBlockEntity stationEntity) {
+            stationEntity.setTerritory(territory.min(), territory.max(), territory.territoryRadius(), territory.workRadius());
+        }
+
+        // Spawn NPC worker
+        boolean spawned = spawnWorker(level, pos, stationBlock.getWorkerType(), territory.workRadius());
+        if (spawned) {
+            Diagnostics.debug(DiagCategory.TERRITORY, null, () -> "Spawned " + stationBlock.getWorkerType() + " at " + pos);
+        } else {
+            Diagnostics.warn(DiagCategory.TERRITORY, null, () -> "Failed to spawn " + stationBlock.getWorkerType() + " at " + pos);
+        }
+        
+        // If Builder station, initialize build task
+        if ("builder".equalsIgnoreCase(stationBlock.getWorkerType())) {
+            int stationLevel = state.getValue(BaseStationBlock.LEVEL);
+            com.nothomealone.structure.BuilderManager.initializeBuildTask(level, pos, String.valueOf(stationLevel));
+            // Register in task manager for automatic reassignment
+            BuilderTaskManager.registerStation(level, pos, String.valueOf(stationLevel));
+        }
+        return spawned;
+    }
+    
     /**
      * Spawns a worker NPC for the station.
      * @return true if spawn was successful
      */
     private static boolean spawnWorker(Level level, BlockPos stationPos, String workerType, int workRadius) {
-        System.out.println("[NotHomeAlone] spawnWorker called: " + workerType + " at " + stationPos + " (isClientSide: " + level.isClientSide + ")");
-        
         // First, cleanup all workers without a station
         cleanupOrphanedWorkers(level);
         
         // Check if a worker already exists for this station
         if (findWorkerForStation(level, stationPos) != null) {
-            System.out.println("[NotHomeAlone] Worker already exists for this station, skipping spawn");
+            Diagnostics.debug(DiagCategory.TERRITORY, null, () -> "Worker already exists for station at " + stationPos + ", skipping spawn");
             return true; // Consider it successful since a worker exists
         }
         // Import entity types based on worker type (case-insensitive)
@@ -147,49 +161,40 @@ public class StationEventHandler {
             default -> null;
         };
         
-        System.out.println("[NotHomeAlone] EntityType: " + entityType);
-        
         if (entityType == null) {
-            System.out.println("[NotHomeAlone] EntityType is null for: " + workerType);
+            Diagnostics.warn(DiagCategory.TERRITORY, null, () -> "No entity type for worker type " + workerType);
             return false;
         }
         
         try {
             net.minecraft.world.entity.Entity entity = entityType.create(level);
-            System.out.println("[NotHomeAlone] Created entity: " + entity);
-            
             if (entity instanceof com.nothomealone.entity.custom.WorkerEntity worker) {
                 // Position worker next to station
                 worker.moveTo(stationPos.getX() + 0.5, stationPos.getY() + 1, stationPos.getZ() + 0.5, 0, 0);
                 worker.setHomeStation(stationPos, workRadius);
                 
-                System.out.println("[NotHomeAlone] Adding entity to world at: " + worker.position());
                 boolean added = level.addFreshEntity(worker);
-                System.out.println("[NotHomeAlone] Entity added: " + added);
                 
                 // Store worker ID and UUID in station and give tools to builder
                 BlockEntity blockEntity = level.getBlockEntity(stationPos);
                 if (blockEntity instanceof StationBlockEntity stationEntity) {
                     stationEntity.setWorkerEntityId(worker.getId());
                     stationEntity.setWorkerUUID(worker.getUUID());
-                    System.out.println("[NotHomeAlone] Stored worker ID: " + worker.getId() + " UUID: " + worker.getUUID());
                     
                     // Give crafting tools to builder
                     if (worker instanceof com.nothomealone.entity.custom.BuilderEntity builder) {
                         builder.addToInventory(new net.minecraft.world.item.ItemStack(net.minecraft.world.item.Items.WOODEN_PICKAXE));
                         builder.addToInventory(new net.minecraft.world.item.ItemStack(net.minecraft.world.item.Items.WOODEN_AXE));
                         builder.addToInventory(new net.minecraft.world.item.ItemStack(net.minecraft.world.item.Items.WOODEN_SHOVEL));
-                        System.out.println("[NotHomeAlone] Gave tools to builder");
                     }
                 }
                 
                 return added;
             } else {
-                System.out.println("[NotHomeAlone] Entity is not a WorkerEntity: " + entity.getClass().getName());
+                Diagnostics.warn(DiagCategory.TERRITORY, null, () -> "Entity is not a WorkerEntity: " + entity.getClass().getName());
             }
         } catch (Exception e) {
-            System.err.println("[NotHomeAlone] Error spawning entity: " + e.getMessage());
-            e.printStackTrace();
+            Diagnostics.warn(DiagCategory.TERRITORY, null, () -> "Error spawning " + workerType + " at " + stationPos, e);
         }
         
         return false;
@@ -199,21 +204,18 @@ public class StationEventHandler {
      * Removes all workers that don't have a station assigned.
      */
     private static void cleanupOrphanedWorkers(Level level) {
-        java.util.List<com.nothomealone.entity.custom.WorkerEntity> workers = 
-            level.getEntitiesOfClass(com.nothomealone.entity.custom.WorkerEntity.class, 
-                new net.minecraft.world.phys.AABB(-30000000, -64, -30000000, 30000000, 320, 30000000));
+        if (!(level instanceof ServerLevel serverLevel)) return;
         
         int removed = 0;
-        for (com.nothomealone.entity.custom.WorkerEntity worker : workers) {
-            if (worker.getStationPos() == null) {
-                System.out.println("[NotHomeAlone] Removing orphaned worker #" + worker.getId() + " at " + worker.position());
-                worker.discard();
-                removed++;
-            }
+        for (com.nothomealone.entity.custom.WorkerEntity worker : WorkerRegistry.getOrphans(serverLevel)) {
+            Diagnostics.debug(DiagCategory.TERRITORY, worker, () -> "Removing orphaned worker at " + worker.position());
+            worker.discard();
+            removed++;
         }
         
         if (removed > 0) {
-            System.out.println("[NotHomeAlone] Cleaned up " + removed + " orphaned workers");
+            int count = removed;
+            Diagnostics.info(DiagCategory.TERRITORY, null, () -> "Cleaned up " + count + " orphaned workers");
         }
     }
     
@@ -221,19 +223,9 @@ public class StationEventHandler {
      * Finds a worker that is assigned to the given station.
      */
     private static com.nothomealone.entity.custom.WorkerEntity findWorkerForStation(Level level, BlockPos stationPos) {
-        java.util.List<com.nothomealone.entity.custom.WorkerEntity> workers = 
-            level.getEntitiesOfClass(com.nothomealone.entity.custom.WorkerEntity.class, 
-                new net.minecraft.world.phys.AABB(-30000000, -64, -30000000, 30000000, 320, 30000000));
-        
-        for (com.nothomealone.entity.custom.WorkerEntity worker : workers) {
-            BlockPos workerStation = worker.getStationPos();
-            if (workerStation != null && workerStation.equals(stationPos)) {
-                System.out.println("[NotHomeAlone] Found existing worker #" + worker.getId() + " for station at " + stationPos);
-                return worker;
-            }
-        }
+        if (!(level instanceof ServerLevel serverLevel)) return null;
         
-        return null;
+        return WorkerRegistry.getWorker(serverLevel, stationPos);
     }
 
     /**
@@ -260,14 +252,14 @@ public class StationEventHandler {
                     net.minecraft.world.entity.Entity entity = serverLevel.getEntity(workerUUID);
                     if (entity instanceof com.nothomealone.entity.custom.WorkerEntity worker) {
                         worker.discard();
-                        System.out.println("[NotHomeAlone] Removed worker with UUID: " + workerUUID);
+                        Diagnostics.debug(DiagCategory.TERRITORY, worker, () -> "Removed worker of broken station at " + pos);
                     }
                 }
             }
             
             // Unregister builder station from task manager
             if ("builder".equalsIgnoreCase(stationBlock.getWorkerType())) {
-                BuilderTaskManager.unregisterStation(pos);
+                BuilderTaskManager.unregisterStation(level, pos);
             }
             
             Player player = event.getPlayer();
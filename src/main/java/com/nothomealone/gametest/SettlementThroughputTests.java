@@ -0,0 +1,201 @@
+package com.nothomealone.gametest;
+
+import com.nothomealone.NotHomeAlone;
+import com.nothomealone.block.ModBlocks;
+import com.nothomealone.block.custom.BaseStationBlock;
+import com.nothomealone.block.entity.StationBlockEntity;
+import com.nothomealone.entity.WorkerRegistry;
+import com.nothomealone.entity.custom.BuilderEntity;
+import com.nothomealone.event.BuilderTaskManager;
+import com.nothomealone.event.StationEventHandler;
+import com.nothomealone.territory.Territory;
+import com.nothomealone.territory.TerritoryManager;
+import net.minecraft.core.BlockPos;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Settlement throughput and tick time regression suite.
+ * Each test places a grid of stocked builder stations on a grass platform (one 16x16 cell per
+ * station), activates them the way a player placement does and waits until every structure is
+ * complete. Ticks to completion, blocks placed per second, paths and walking per structure and
+ * the server tick time added per active builder are written to the {@link ThroughputReport}.
+ * Each settlement size is its own batch, so the sizes never run at the same time.
+ * Run headless with {@code ./gradlew runGameTestServer}.
+ */
+@GameTestHolder(NotHomeAlone.MOD_ID)
+@PrefixGameTestTemplate(false)
+public class SettlementThroughputTests {
+    private static final int CELL = 16;
+    // Ticks measured before activation as the tick time baseline
+    private static final int BASELINE_TICKS = 40;
+
+    @GameTest(template = "gametest/settlement_1", batch = "settlement_1", timeoutTicks = 12000)
+    public static void settlement1(GameTestHelper helper) {
+        run(helper, 1, 1);
+    }
+
+    @GameTest(template = "gametest/settlement_16", batch = "settlement_16", timeoutTicks = 12000)
+    public static void settlement16(GameTestHelper helper) {
+        run(helper, 16, 4);
+    }
+
+    @GameTest(template = "gametest/settlement_128", batch = "settlement_128", timeoutTicks = 24000)
+    public static void settlement128(GameTestHelper helper) {
+        run(helper, 128, 16);
+    }
+
+    private static void run(GameTestHelper helper, int stations, int columns) {
+        ServerLevel level = helper.getLevel();
+        List<BlockPos> positions = new ArrayList<>(stations);
+        for (int i = 0; i < stations; i++) {
+            // Stations stand on the platform in the middle of their cell
+            BlockPos relative = new BlockPos((i % columns) * CELL + CELL / 2, 1, (i / columns) * CELL + CELL / 2);
+            positions.add(helper.absolutePos(relative));
+        }
+
+        Measurement measurement = new Measurement(stations);
+        helper.onEachTick(() -> measurement.sample(level.getServer(), helper.getTick()));
+
+        helper.startSequence()
+            .thenIdle(BASELINE_TICKS)
+            .thenExecute(() -> {
+                measurement.activatedAt = helper.getTick();
+                for (BlockPos pos : positions) {
+                    activate(helper, level, pos);
+                }
+            })
+            .thenWaitUntil(() -> {
+                measurement.checkCompletion(level, positions, helper.getTick());
+                helper.assertTrue(measurement.completed == stations,
+                    measurement.completed + "/" + stations + " structures complete");
+            })
+            .thenExecute(() -> {
+                int blocksPlaced = 0;
+                int buildPaths = 0;
+                double buildDistance = 0;
+                for (BlockPos pos : positions) {
+                    BuilderEntity builder = WorkerRegistry.getWorker(level, pos, BuilderEntity.class);
+                    if (builder != null) {
+                        blocksPlaced += builder.getBlocksPlaced();
+                        buildPaths += builder.getBuildPaths();
+                        buildDistance += builder.getBuildDistance();
+                    }
+                }
+                ThroughputReport.record(measurement.result(blocksPlaced, buildPaths, buildDistance));
+                positions.forEach(pos -> deactivate(level, pos));
+            })
+            .thenSucceed();
+    }
+
+    /**
+     * Places a builder station with the materials for its structure and activates it.
+     */
+    private static void activate(GameTestHelper helper, ServerLevel level, BlockPos pos) {
+        BlockState state = ModBlocks.BUILDER_STATION.get().defaultBlockState();
+        level.setBlock(pos, state, 3);
+        if (!(level.getBlockEntity(pos) instanceof StationBlockEntity station)) {
+            helper.fail("No station block entity at " + pos);
+            return;
+        }
+
+        List<ItemStack> stock = List.of(
+            new ItemStack(Items.DIRT, 64), new ItemStack(Items.DIRT, 64), new ItemStack(Items.DIRT, 64),
+            new ItemStack(Items.OAK_FENCE, 64), new ItemStack(Items.TORCH, 16), new ItemStack(Items.CRAFTING_TABLE),
+            new ItemStack(Items.OAK_LOG, 32), new ItemStack(Items.STONE_PICKAXE), new ItemStack(Items.STONE_AXE),
+            new ItemStack(Items.STONE_SHOVEL));
+        for (int slot = 0; slot < stock.size(); slot++) {
+            station.setItem(slot, stock.get(slot));
+        }
+
+        BaseStationBlock block = (BaseStationBlock) state.getBlock();
+        Territory territory = TerritoryManager.claimTerritory(level, pos, block.getWorkerType(), block.getTerritoryRadius(), block.getWorkRadius());
+        if (territory == null) {
+            helper.fail("Territory already claimed at " + pos);
+            return;
+        }
+        StationEventHandler.activateStation(level, pos, state, territory);
+    }
+
+    /**
+     * Removes the builder, task registration and claim of a station so it costs nothing in later tests.
+     */
+    private static void deactivate(ServerLevel level, BlockPos pos) {
+        BuilderEntity builder = WorkerRegistry.getWorker(level, pos, BuilderEntity.class);
+        if (builder != null) {
+            builder.discard();
+        }
+        BuilderTaskManager.unregisterStation(level, pos);
+        TerritoryManager.releaseTerritory(level, pos);
+    }
+
+    /**
+     * Tick times and completion ticks of one run.
+     */
+    private static class Measurement {
+        final int[] completedAt;
+        long activatedAt = -1;
+        int completed = 0;
+        double baselineNanos = 0;
+        int baselineSamples = 0;
+        double activeNanos = 0;
+        int activeSamples = 0;
+
+        Measurement(int stations) {
+            completedAt = new int[stations];
+            Arrays.fill(completedAt, -1);
+        }
+
+        /**
+         * Samples the duration of the previous server tick.
+         */
+        void sample(MinecraftServer server, long tick) {
+            long nanos = server.tickTimes[(server.getTickCount() + server.tickTimes.length - 1) % server.tickTimes.length];
+            if (activatedAt < 0) {
+                baselineNanos += nanos;
+                baselineSamples++;
+            } else if (tick > activatedAt + 1 && completed < completedAt.length) {
+                // Skips the activation tick itself, which spawns all builders at once
+                activeNanos += nanos;
+                activeSamples++;
+            }
+        }
+
+        void checkCompletion(ServerLevel level, List<BlockPos> positions, long tick) {
+            for (int i = 0; i < positions.size(); i++) {
+                if (completedAt[i] >= 0) {
+                    continue;
+                }
+                BlockPos pos = positions.get(i);
+                BuilderEntity builder = WorkerRegistry.getWorker(level, pos, BuilderEntity.class);
+                boolean built = level.getBlockEntity(pos) instanceof StationBlockEntity station && station.isStructureBuilt()
+                    || builder != null && builder.getCurrentTask() != null && builder.getCurrentTask().isCompleted();
+                if (built) {
+                    completedAt[i] = (int) (tick - activatedAt);
+                    completed++;
+                }
+            }
+        }
+
+        ThroughputReport.Result result(int blocksPlaced, int buildPaths, double buildDistance) {
+            int ticksToCompletion = Arrays.stream(completedAt).max().orElse(0);
+            double meanStationTicks = Arrays.stream(completedAt).average().orElse(0);
+            double seconds = Math.max(1, ticksToCompletion) / 20.0;
+            return new ThroughputReport.Result(completedAt.length, ticksToCompletion, meanStationTicks, blocksPlaced,
+                blocksPlaced / seconds, buildPaths, buildDistance,
+                baselineSamples == 0 ? 0 : baselineNanos / baselineSamples / 1_000_000.0,
+                activeSamples == 0 ? 0 : activeNanos / activeSamples / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.nothomealone.gametest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.mojang.logging.LogUtils;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Machine-readable results of the settlement throughput GameTests.
+ * Every finished run replaces its entry, and the whole report is rewritten right away, so the
+ * file is complete even if a later test times out. The path can be changed with the
+ * {@code nothomealone.gametest.report} system property.
+ */
+public class ThroughputReport {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Path PATH = Path.of(System.getProperty("nothomealone.gametest.report",
+        "gametest-reports/settlement-throughput.json"));
+
+    private static final Map<Integer, Result> results = new TreeMap<>();
+
+    /**
+     * Results of one settlement size.
+     * @param ticksToCompletion Ticks from activation until the last structure was complete
+     * @param meanStationTicks Mean ticks from activation until a station's structure was complete
+     * @param blocksPerSecond Blocks placed per second of game time (20 ticks) by all builders together
+     * @param buildPaths Paths computed by all builders to reach build steps
+     * @param buildDistance Blocks walked by all builders between build steps
+     * @param baselineMspt Mean server tick time before the stations were activated
+     * @param activeMspt Mean server tick time while the builders were working
+     */
+    public record Result(int stations, int ticksToCompletion, double meanStationTicks, int blocksPlaced,
+                         double blocksPerSecond, int buildPaths, double buildDistance,
+                         double baselineMspt, double activeMspt) {
+        /**
+         * Server tick time added by each active builder.
+         */
+        public double msptPerBuilder() {
+            return (activeMspt - baselineMspt) / stations;
+        }
+
+        /**
+         * Paths computed per structure.
+         */
+        public double pathsPerStructure() {
+            return (double) buildPaths / stations;
+        }
+
+        /**
+         * Blocks walked per structure.
+         */
+        public double distancePerStructure() {
+            return buildDistance / stations;
+        }
+    }
+
+    public static synchronized void record(Result result) {
+        results.put(result.stations(), result);
+        LOGGER.info("Settlement throughput ({} stations): {} ticks, {} blocks/s, {} paths and {} blocks walked per structure, {} ms/tick per builder",
+            result.stations(), result.ticksToCompletion(), String.format("%.2f", result.blocksPerSecond()),
+            String.format("%.1f", result.pathsPerStructure()), String.format("%.1f", result.distancePerStructure()),
+            String.format("%.4f", result.msptPerBuilder()));
+        write();
+    }
+
+    private static void write() {
+        JsonArray runs = new JsonArray();
+        for (Result result : results.values()) {
+            JsonObject run = new JsonObject();
+            run.addProperty("stations", result.stations());
+            run.addProperty("ticksToCompletion", result.ticksToCompletion());
+            run.addProperty("meanStationTicks", result.meanStationTicks());
+            run.addProperty("blocksPlaced", result.blocksPlaced());
+            run.addProperty("blocksPerSecond", result.blocksPerSecond());
+            run.addProperty("pathsPerStructure", result.pathsPerStructure());
+            run.addProperty("distancePerStructure", result.distancePerStructure());
+            run.addProperty("baselineMspt", result.baselineMspt());
+            run.addProperty("activeMspt", result.activeMspt());
+            run.addProperty("msptPerBuilder", result.msptPerBuilder());
+            runs.add(run);
+        }
+
+        JsonObject report = new JsonObject();
+        report.addProperty("suite", "settlement_throughput");
+        report.addProperty("timestamp", Instant.now().toString());
+        report.add("runs", runs);
+
+        try {
+            Path parent = PATH.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(PATH)) {
+                GSON.toJson(report, writer);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Could not write GameTest report to {}", PATH.toAbsolutePath(), e);
+        }
+    }
+}
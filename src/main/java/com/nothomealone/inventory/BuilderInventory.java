@@ -0,0 +1,205 @@
+package com.nothomealone.inventory;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import net.minecraft.core.NonNullList;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.ContainerHelper;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.Block;
+
+/**
+ * The builder's inventory, with an {@link ItemCountIndex} over its slots.
+ * Changes made through this class update the index directly. Stacks handed out by
+ * {@link #getItem} may be changed in place (GUI, tool damage), so after that the
+ * slots are re-synced before the next query.
+ */
+public class BuilderInventory implements BulkContainer {
+    private final NonNullList<ItemStack> items;
+    private final ItemCountIndex index;
+    private boolean dirty = false;
+
+    public BuilderInventory(int size) {
+        this.items = NonNullList.withSize(size, ItemStack.EMPTY);
+        this.index = new ItemCountIndex(size);
+    }
+
+    private ItemCountIndex index() {
+        if (dirty) {
+            index.sync(items);
+            dirty = false;
+        }
+        return index;
+    }
+
+    public int count(Item item) {
+        return index().count(item);
+    }
+
+    /**
+     * Counts an Item or an item TagKey.
+     */
+    public int count(Object itemOrTag) {
+        return index().count(itemOrTag);
+    }
+
+    public int countTag(TagKey<Item> tag) {
+        return index().countTag(tag);
+    }
+
+    /**
+     * Counts the block items usable for the given block (exact or compatible).
+     */
+    public int countCompatible(Block block) {
+        return index().countCompatible(block);
+    }
+
+    public boolean hasCompatible(Block block) {
+        return countCompatible(block) > 0;
+    }
+
+    /**
+     * Gets the first block in the inventory that can be placed for the given block, or null.
+     */
+    public Block findCompatibleBlock(Block block) {
+        int slot = index().firstCompatibleSlot(block);
+        return slot == -1 ? null : Block.byItem(index.getItem(slot));
+    }
+
+    /**
+     * Removes one block item usable for the given block (exact or compatible).
+     * @return true if an item was removed
+     */
+    public boolean removeCompatible(Block block) {
+        int slot = index().firstCompatibleSlot(block);
+        if (slot == -1) {
+            return false;
+        }
+        removeItem(slot, 1);
+        return true;
+    }
+
+    /**
+     * Removes up to count items matching an Item or item TagKey, first slots first.
+     */
+    @SuppressWarnings("unchecked")
+    public void remove(Object itemOrTag, int count) {
+        int remaining = count;
+        for (int i = 0; i < items.size() && remaining > 0; i++) {
+            ItemStack stack = items.get(i);
+            if (stack.isEmpty()) continue;
+
+            boolean matches = false;
+            if (itemOrTag instanceof Item item) {
+                matches = stack.is(item);
+            } else if (itemOrTag instanceof TagKey<?> tag) {
+                matches = stack.is((TagKey<Item>) tag);
+            }
+
+            if (matches) {
+                int toRemove = Math.min(remaining, stack.getCount());
+                removeItem(i, toRemove);
+                remaining -= toRemove;
+            }
+        }
+    }
+
+    /**
+     * Adds a stack to the first empty slot, merging into stacks of the same item found before it.
+     */
+    public void add(ItemStack stack) {
+        for (int i = 0; i < items.size(); i++) {
+            ItemStack slotStack = items.get(i);
+            if (slotStack.isEmpty()) {
+                setItem(i, stack.copy());
+                return;
+            } else if (ItemStack.isSameItemSameTags(slotStack, stack)) {
+                int maxSize = Math.min(slotStack.getMaxStackSize(), getMaxStackSize());
+                int toAdd = Math.min(stack.getCount(), maxSize - slotStack.getCount());
+                if (toAdd > 0) {
+                    slotStack.grow(toAdd);
+                    stack.shrink(toAdd);
+                    index.update(i, slotStack);
+                    if (stack.isEmpty()) return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Incremented on every content change.
+     */
+    public int getModCount() {
+        return index().getModCount();
+    }
+
+    @Override
+    public int getContainerSize() {
+        return items.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (ItemStack stack : items) {
+            if (!stack.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public ItemStack peekItem(int slot) {
+        return items.get(slot);
+    }
+
+    @Override
+    public void setItems(Int2ObjectMap<ItemStack> stacks) {
+        for (Int2ObjectMap.Entry<ItemStack> entry : stacks.int2ObjectEntrySet()) {
+            setItem(entry.getIntKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public ItemStack getItem(int slot) {
+        // The caller may change the stack in place
+        dirty = true;
+        return items.get(slot);
+    }
+
+    @Override
+    public ItemStack removeItem(int slot, int amount) {
+        ItemStack removed = ContainerHelper.removeItem(items, slot, amount);
+        index.update(slot, items.get(slot));
+        return removed;
+    }
+
+    @Override
+    public ItemStack removeItemNoUpdate(int slot) {
+        ItemStack removed = ContainerHelper.takeItem(items, slot);
+        index.update(slot, ItemStack.EMPTY);
+        return removed;
+    }
+
+    @Override
+    public void setItem(int slot, ItemStack stack) {
+        items.set(slot, stack);
+        index.update(slot, stack);
+    }
+
+    @Override
+    public void setChanged() {
+        dirty = true;
+    }
+
+    @Override
+    public boolean stillValid(Player player) {
+        return true;
+    }
+
+    @Override
+    public void clearContent() {
+        items.clear();
+        index.sync(items);
+        dirty = false;
+    }
+}
@@ -0,0 +1,23 @@
+package com.nothomealone.inventory;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import net.minecraft.world.Container;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * A container that can read slots without handing out stacks for modification and
+ * replace many slots at once with a single change notification.
+ * Used by {@link ItemTransfer}.
+ */
+public interface BulkContainer extends Container {
+
+    /**
+     * Gets the stack in a slot for reading only; the stack must not be modified.
+     */
+    ItemStack peekItem(int slot);
+
+    /**
+     * Replaces the stacks of the given slots, then marks the container changed once.
+     */
+    void setItems(Int2ObjectMap<ItemStack> stacks);
+}
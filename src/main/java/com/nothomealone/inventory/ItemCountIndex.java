@@ -0,0 +1,240 @@
+package com.nothomealone.inventory;
+
+import com.nothomealone.structure.BlockCompatibility;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Item counts of a slot-based inventory, kept up to date slot by slot.
+ * Tracks the total per item, per {@link BlockCompatibility} group and per item tag
+ * (tags are only tracked once they were queried), plus which slots hold each item,
+ * so inventory queries are map reads instead of scans with tag checks.
+ * The index does not see the stacks itself: the owner reports every slot change
+ * through {@link #update} or {@link #sync}.
+ */
+public class ItemCountIndex {
+    private final Item[] slotItems;
+    private final int[] slotCounts;
+    private final Reference2IntOpenHashMap<Item> itemCounts = new Reference2IntOpenHashMap<>();
+    private final Map<Item, BitSet> slotsByItem = new LinkedHashMap<>();
+    private final Set<Item> itemsView = Collections.unmodifiableSet(slotsByItem.keySet());
+    private final Map<TagKey<Item>, int[]> tagCounts = new HashMap<>();
+    private int[] groupCounts = new int[0];
+    private int tagVersion = -1;
+    private int modCount = 0;
+
+    public ItemCountIndex(int size) {
+        this.slotItems = new Item[size];
+        this.slotCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            slotItems[i] = Items.AIR;
+        }
+    }
+
+    /**
+     * Records the new content of a slot.
+     */
+    public void update(int slot, ItemStack stack) {
+        Item item = stack.isEmpty() ? Items.AIR : stack.getItem();
+        int count = stack.isEmpty() ? 0 : stack.getCount();
+        Item oldItem = slotItems[slot];
+        int oldCount = slotCounts[slot];
+        if (item == oldItem && count == oldCount) {
+            return;
+        }
+
+        checkTagVersion();
+        if (oldItem != Items.AIR) {
+            adjust(oldItem, -oldCount);
+            if (item != oldItem) {
+                BitSet slots = slotsByItem.get(oldItem);
+                slots.clear(slot);
+                if (slots.isEmpty()) {
+                    slotsByItem.remove(oldItem);
+                }
+            }
+        }
+        if (item != Items.AIR) {
+            adjust(item, count);
+            slotsByItem.computeIfAbsent(item, k -> new BitSet(slotItems.length)).set(slot);
+        }
+        slotItems[slot] = item;
+        slotCounts[slot] = count;
+        modCount++;
+    }
+
+    /**
+     * Compares every slot with the given stacks and records the ones that changed.
+     * Only compares item and count per slot, no tag or block lookups.
+     */
+    public void sync(List<ItemStack> stacks) {
+        for (int i = 0; i < slotItems.length; i++) {
+            update(i, stacks.get(i));
+        }
+    }
+
+    private void adjust(Item item, int delta) {
+        int total = itemCounts.getInt(item) + delta;
+        if (total == 0) {
+            itemCounts.removeInt(item);
+        } else {
+            itemCounts.put(item, total);
+        }
+
+        int group = groupOf(item);
+        if (group != BlockCompatibility.NO_GROUP) {
+            groupCounts[group] += delta;
+        }
+        for (Map.Entry<TagKey<Item>, int[]> entry : tagCounts.entrySet()) {
+            if (item.builtInRegistryHolder().is(entry.getKey())) {
+                entry.getValue()[0] += delta;
+            }
+        }
+    }
+
+    /**
+     * Tags and compatibility groups change on reload, so recount everything derived from them.
+     */
+    private void checkTagVersion() {
+        if (tagVersion == BlockCompatibility.getVersion()) {
+            return;
+        }
+        tagVersion = BlockCompatibility.getVersion();
+        tagCounts.clear();
+        groupCounts = new int[BlockCompatibility.groupCount()];
+        for (Reference2IntMap.Entry<Item> entry : itemCounts.reference2IntEntrySet()) {
+            int group = groupOf(entry.getKey());
+            if (group != BlockCompatibility.NO_GROUP) {
+                groupCounts[group] += entry.getIntValue();
+            }
+        }
+    }
+
+    private static int groupOf(Item item) {
+        Block block = Block.byItem(item);
+        return block == Blocks.AIR ? BlockCompatibility.NO_GROUP : BlockCompatibility.groupOf(block);
+    }
+
+    public int count(Item item) {
+        return itemCounts.getInt(item);
+    }
+
+    /**
+     * Counts the items in a tag. The tag is tracked from its first query on.
+     */
+    public int countTag(TagKey<Item> tag) {
+        checkTagVersion();
+        int[] counter = tagCounts.get(tag);
+        if (counter == null) {
+            counter = new int[1];
+            for (Reference2IntMap.Entry<Item> entry : itemCounts.reference2IntEntrySet()) {
+                if (entry.getKey().builtInRegistryHolder().is(tag)) {
+                    counter[0] += entry.getIntValue();
+                }
+            }
+            tagCounts.put(tag, counter);
+        }
+        return counter[0];
+    }
+
+    /**
+     * Counts an Item or an item TagKey (the two input kinds of builder recipes).
+     */
+    @SuppressWarnings("unchecked")
+    public int count(Object itemOrTag) {
+        if (itemOrTag instanceof Item item) {
+            return count(item);
+        } else if (itemOrTag instanceof TagKey<?> tag) {
+            return countTag((TagKey<Item>) tag);
+        }
+        return 0;
+    }
+
+    /**
+     * Counts the block items that can be placed for the given block (itself or compatible blocks).
+     */
+    public int countCompatible(Block block) {
+        checkTagVersion();
+        int group = BlockCompatibility.groupOf(block);
+        if (group == BlockCompatibility.NO_GROUP) {
+            return block.asItem() == Items.AIR ? 0 : count(block.asItem());
+        }
+        return groupCounts[group];
+    }
+
+    /**
+     * Gets the first slot holding the item, or -1.
+     */
+    public int firstSlot(Item item) {
+        BitSet slots = slotsByItem.get(item);
+        return slots == null ? -1 : slots.nextSetBit(0);
+    }
+
+    /**
+     * Gets the first slot holding the block or a compatible block, or -1.
+     */
+    public int firstCompatibleSlot(Block block) {
+        if (countCompatible(block) <= 0) {
+            return -1;
+        }
+        int group = BlockCompatibility.groupOf(block);
+        if (group == BlockCompatibility.NO_GROUP) {
+            return firstSlot(block.asItem());
+        }
+
+        int first = -1;
+        for (Map.Entry<Item, BitSet> entry : slotsByItem.entrySet()) {
+            if (groupOf(entry.getKey()) == group) {
+                int slot = entry.getValue().nextSetBit(0);
+                if (first == -1 || slot < first) {
+                    first = slot;
+                }
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Gets the next slot at or after fromSlot holding the item, or -1.
+     */
+    public int nextSlot(Item item, int fromSlot) {
+        BitSet slots = slotsByItem.get(item);
+        return slots == null ? -1 : slots.nextSetBit(fromSlot);
+    }
+
+    /**
+     * Gets the distinct items currently held (read-only view).
+     */
+    public Set<Item> items() {
+        return itemsView;
+    }
+
+    public int size() {
+        return slotItems.length;
+    }
+
+    public Item getItem(int slot) {
+        return slotItems[slot];
+    }
+
+    /**
+     * Incremented on every change, so callers can cache results derived from the contents.
+     */
+    public int getModCount() {
+        return modCount;
+    }
+}
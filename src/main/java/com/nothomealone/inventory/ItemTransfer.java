@@ -0,0 +1,171 @@
+package com.nothomealone.inventory;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.world.Container;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves stacks from one container to another as a single transaction.
+ * Moves are first collected, then {@link #commit} plays them on copies of the affected slots
+ * and writes the results back to each container in one go, so a station is marked changed
+ * once per transfer instead of once per slot.
+ * Items that do not fit in the target stay in their source slot; nothing is ever dropped.
+ */
+public class ItemTransfer {
+    private final Container source;
+    private final Container target;
+    private final List<Move> moves = new ArrayList<>();
+
+    // targetSlot -1 = merge into matching stacks, then empty slots
+    private record Move(int sourceSlot, int count, int targetSlot) {}
+
+    /**
+     * Outcome of a committed transfer.
+     * @param stacks Number of source slots that gave items
+     * @param items Number of items moved
+     * @param leftOver Number of items that did not fit and stayed in the source
+     */
+    public record Result(int stacks, int items, int leftOver) {}
+
+    private ItemTransfer(Container source, Container target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    public static ItemTransfer between(Container source, Container target) {
+        return new ItemTransfer(source, target);
+    }
+
+    /**
+     * Moves the whole stack of a source slot.
+     */
+    public ItemTransfer move(int sourceSlot) {
+        return move(sourceSlot, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Moves up to count items of a source slot.
+     */
+    public ItemTransfer move(int sourceSlot, int count) {
+        moves.add(new Move(sourceSlot, count, -1));
+        return this;
+    }
+
+    /**
+     * Moves the whole stack of a source slot into a target slot, discarding what the target slot held.
+     */
+    public ItemTransfer replace(int sourceSlot, int targetSlot) {
+        moves.add(new Move(sourceSlot, 0, targetSlot));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return moves.isEmpty();
+    }
+
+    /**
+     * Plays all moves and writes the changed slots back to both containers.
+     */
+    public Result commit() {
+        Slots from = new Slots(source);
+        Slots to = new Slots(target);
+        int stacks = 0;
+        int items = 0;
+        int leftOver = 0;
+
+        for (Move move : moves) {
+            ItemStack stack = from.get(move.sourceSlot());
+            if (move.targetSlot() != -1) {
+                if (stack.isEmpty()) continue;
+                from.set(move.sourceSlot(), ItemStack.EMPTY);
+                to.set(move.targetSlot(), stack.copy());
+                stacks++;
+                items += stack.getCount();
+                continue;
+            }
+            if (stack.isEmpty()) continue;
+
+            int count = Math.min(move.count(), stack.getCount());
+            int notFitting = to.insert(stack.copyWithCount(count));
+            int moved = count - notFitting;
+            leftOver += notFitting;
+            if (moved > 0) {
+                from.set(move.sourceSlot(), stack.copyWithCount(stack.getCount() - moved));
+                stacks++;
+                items += moved;
+            }
+        }
+
+        from.apply();
+        to.apply();
+        return new Result(stacks, items, leftOver);
+    }
+
+    /**
+     * Working copies of the touched slots of a container.
+     */
+    private static class Slots {
+        private final Container container;
+        private final Int2ObjectMap<ItemStack> changed = new Int2ObjectOpenHashMap<>();
+
+        Slots(Container container) {
+            this.container = container;
+        }
+
+        ItemStack get(int slot) {
+            ItemStack stack = changed.get(slot);
+            if (stack != null) {
+                return stack;
+            }
+            return container instanceof BulkContainer bulk ? bulk.peekItem(slot) : container.getItem(slot);
+        }
+
+        void set(int slot, ItemStack stack) {
+            changed.put(slot, stack.isEmpty() ? ItemStack.EMPTY : stack);
+        }
+
+        /**
+         * Merges into matching stacks first, then fills empty slots.
+         * @return The number of items that did not fit
+         */
+        int insert(ItemStack stack) {
+            int remaining = stack.getCount();
+            int size = container.getContainerSize();
+            for (int i = 0; i < size && remaining > 0; i++) {
+                ItemStack slotStack = get(i);
+                if (slotStack.isEmpty() || !ItemStack.isSameItemSameTags(slotStack, stack)) continue;
+                int space = Math.min(slotStack.getMaxStackSize(), container.getMaxStackSize()) - slotStack.getCount();
+                if (space > 0) {
+                    int added = Math.min(space, remaining);
+                    set(i, slotStack.copyWithCount(slotStack.getCount() + added));
+                    remaining -= added;
+                }
+            }
+            for (int i = 0; i < size && remaining > 0; i++) {
+                if (!get(i).isEmpty() || !container.canPlaceItem(i, stack)) continue;
+                int added = Math.min(Math.min(stack.getMaxStackSize(), container.getMaxStackSize()), remaining);
+                set(i, stack.copyWithCount(added));
+                remaining -= added;
+            }
+            return remaining;
+        }
+
+        void apply() {
+            if (changed.isEmpty()) {
+                return;
+            }
+            if (container instanceof BulkContainer bulk) {
+                bulk.setItems(changed);
+            } else {
+                for (Int2ObjectMap.Entry<ItemStack> entry : changed.int2ObjectEntrySet()) {
+                    container.setItem(entry.getIntKey(), entry.getValue());
+                }
+                container.setChanged();
+            }
+        }
+    }
+}
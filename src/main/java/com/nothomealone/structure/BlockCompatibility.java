@@ -0,0 +1,107 @@
+package com.nothomealone.structure;
+
+import com.nothomealone.NotHomeAlone;
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.level.block.Block;
+import net.minecraftforge.event.TagsUpdatedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Groups of blocks the builder may use interchangeably (e.g. any planks for oak planks).
+ * Groups are the block tags under {@code nothomealone:compatible/}, so datapacks can add
+ * their own. The block to group table is rebuilt whenever tags are (re)loaded, which makes
+ * a compatibility check a map read and an int comparison.
+ * A block is in at most one group; blocks outside every group are only compatible with themselves.
+ * The table is read from background blueprint compiles too, so each rebuild publishes a new
+ * immutable snapshot through a single volatile field.
+ */
+@Mod.EventBusSubscriber(modid = NotHomeAlone.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class BlockCompatibility {
+    public static final int NO_GROUP = -1;
+    private static final String GROUP_TAG_PREFIX = "compatible/";
+
+    private static volatile Table table = new Table(emptyTable(), 0, 0);
+
+    /**
+     * Block to group table of one rebuild; never changed once published.
+     * @param version Bumped on every rebuild so cached group ids can be detected as stale
+     */
+    private record Table(Reference2IntOpenHashMap<Block> groups, int groupCount, int version) {}
+
+    /**
+     * Gets the compatibility group of a block.
+     * @return The group id (0 to groupCount() - 1), or NO_GROUP
+     */
+    public static int groupOf(Block block) {
+        return table.groups().getInt(block);
+    }
+
+    /**
+     * Checks if a block can be used in place of another.
+     */
+    public static boolean areCompatible(Block current, Block required) {
+        if (current == required) {
+            return true;
+        }
+        Reference2IntOpenHashMap<Block> groups = table.groups();
+        int group = groups.getInt(current);
+        return group != NO_GROUP && group == groups.getInt(required);
+    }
+
+    public static int groupCount() {
+        return table.groupCount();
+    }
+
+    public static int getVersion() {
+        return table.version();
+    }
+
+    /**
+     * Rebuilds the table from the currently bound block tags.
+     */
+    public static void rebuild() {
+        List<TagKey<Block>> groupTags = BuiltInRegistries.BLOCK.getTagNames()
+            .filter(tag -> tag.location().getNamespace().equals(NotHomeAlone.MOD_ID)
+                && tag.location().getPath().startsWith(GROUP_TAG_PREFIX))
+            .sorted(Comparator.comparing(tag -> tag.location().toString()))
+            .toList();
+
+        Reference2IntOpenHashMap<Block> groups = emptyTable();
+        for (int group = 0; group < groupTags.size(); group++) {
+            for (Holder<Block> holder : BuiltInRegistries.BLOCK.getTagOrEmpty(groupTags.get(group))) {
+                // First group wins if a block is listed in several
+                if (!groups.containsKey(holder.value())) {
+                    groups.put(holder.value(), group);
+                }
+            }
+        }
+
+        table = new Table(groups, groupTags.size(), table.version() + 1);
+        Diagnostics.info(DiagCategory.STRUCTURE, null, () -> "Loaded " + groupTags.size() + " compatibility groups covering " + groups.size() + " blocks");
+    }
+
+    private static Reference2IntOpenHashMap<Block> emptyTable() {
+        Reference2IntOpenHashMap<Block> table = new Reference2IntOpenHashMap<>();
+        table.defaultReturnValue(NO_GROUP);
+        return table;
+    }
+
+    /**
+     * Rebuilds on the server's tag reload only; the client receiving the same tags has no builders.
+     */
+    @SubscribeEvent
+    public static void onTagsUpdated(TagsUpdatedEvent event) {
+        if (event.getUpdateCause() == TagsUpdatedEvent.UpdateCause.SERVER_DATA_LOAD) {
+            rebuild();
+        }
+    }
+}
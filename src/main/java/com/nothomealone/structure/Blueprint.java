@@ -0,0 +1,92 @@
+package com.nothomealone.structure;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Mirror;
+import net.minecraft.world.level.block.Rotation;
+import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Immutable, station-relative build plan of a structure.
+ * Positions are stored as packed offsets from the station block and steps are
+ * already in build order (by priority, then {@link BuildOrder}), so placing a blueprint at a station is a plain translation.
+ * Instances are shared through {@link BlueprintCache} and must never be modified.
+ */
+public final class Blueprint {
+    private final ResourceLocation structure;
+    private final Rotation rotation;
+    private final Mirror mirror;
+    private final BlockState[] palette;
+    private final long[] offsets;
+    private final int[] stateIndices;
+    private final byte[] priorities;
+    // Structure this blueprint upgrades from, or null for a full structure
+    @Nullable
+    private final ResourceLocation upgradeFrom;
+
+    Blueprint(ResourceLocation structure, @Nullable ResourceLocation upgradeFrom, Rotation rotation, Mirror mirror,
+              BlockState[] palette, long[] offsets, int[] stateIndices, byte[] priorities) {
+        this.structure = structure;
+        this.upgradeFrom = upgradeFrom;
+        this.rotation = rotation;
+        this.mirror = mirror;
+        this.palette = palette;
+        this.offsets = offsets;
+        this.stateIndices = stateIndices;
+        this.priorities = priorities;
+    }
+
+    /**
+     * Creates a new build task placing this blueprint at the given station.
+     */
+    public BuildTask createTask(BlockPos stationPos) {
+        long[] positions = new long[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            long offset = offsets[i];
+            positions[i] = BlockPos.asLong(stationPos.getX() + BlockPos.getX(offset),
+                    stationPos.getY() + BlockPos.getY(offset),
+                    stationPos.getZ() + BlockPos.getZ(offset));
+        }
+        BuildTask task = new BuildTask(structure.toString(), stationPos, palette, positions,
+                stateIndices.clone(), priorities.clone());
+        task.setUpgradeFrom(upgradeFrom == null ? null : upgradeFrom.toString());
+        return task;
+    }
+
+    public ResourceLocation getStructure() {
+        return structure;
+    }
+
+    @Nullable
+    public ResourceLocation getUpgradeFrom() {
+        return upgradeFrom;
+    }
+
+    public Rotation getRotation() {
+        return rotation;
+    }
+
+    public Mirror getMirror() {
+        return mirror;
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Gets the offset of a step from the station block, packed with {@link BlockPos#asLong}.
+     */
+    public long getOffset(int index) {
+        return offsets[index];
+    }
+
+    public BlockState getState(int index) {
+        return palette[stateIndices[index]];
+    }
+
+    public int getPriority(int index) {
+        return priorities[index];
+    }
+}
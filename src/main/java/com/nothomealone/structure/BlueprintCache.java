@@ -0,0 +1,125 @@
+package com.nothomealone.structure;
+
+import com.nothomealone.NotHomeAlone;
+import net.minecraft.Util;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.packs.resources.ResourceManagerReloadListener;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Mirror;
+import net.minecraft.world.level.block.Rotation;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplateManager;
+import net.minecraftforge.event.AddReloadListenerEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Caches compiled {@link Blueprint}s by structure, rotation and mirror, and the upgrades between them.
+ * Blueprints are compiled on a background executor: loading the template (the structure manager
+ * is also used by worldgen threads) and compiling it only reads immutable data, so placing a
+ * station never stalls the server tick. The cache itself is only touched on the server thread.
+ * The cache is cleared on datapack reload (structure files may have changed) and when the server stops.
+ */
+@Mod.EventBusSubscriber(modid = NotHomeAlone.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class BlueprintCache {
+    private static final Map<Key, CompletableFuture<Blueprint>> blueprints = new HashMap<>();
+
+    private static final Map<UpgradeKey, CompletableFuture<Blueprint>> upgrades = new HashMap<>();
+
+    private record Key(ResourceLocation structure, Rotation rotation, Mirror mirror) {}
+
+    private record UpgradeKey(ResourceLocation from, ResourceLocation to) {}
+
+    /**
+     * Gets the unrotated blueprint of a structure, compiling it on first use.
+     * Blocks until the blueprint is compiled; prefer {@link #getAsync} on the server thread.
+     * @return The blueprint, or null if the structure does not exist
+     */
+    public static Blueprint get(ServerLevel level, ResourceLocation structure) {
+        return get(level, structure, Rotation.NONE, Mirror.NONE);
+    }
+
+    /**
+     * Gets the blueprint of a structure with the given rotation and mirror, compiling it on first use.
+     * Blocks until the blueprint is compiled; prefer {@link #getAsync} on the server thread.
+     * @return The blueprint, or null if the structure does not exist
+     */
+    public static Blueprint get(ServerLevel level, ResourceLocation structure, Rotation rotation, Mirror mirror) {
+        return getAsync(level, structure, rotation, mirror).join();
+    }
+
+    /**
+     * Gets the blueprint of a structure with the given rotation and mirror. Cached blueprints are
+     * returned as completed futures; otherwise the blueprint is compiled on a background thread.
+     * Must be called on the server thread.
+     * @return Future of the blueprint, completing with null if the structure does not exist
+     */
+    public static CompletableFuture<Blueprint> getAsync(ServerLevel level, ResourceLocation structure, Rotation rotation, Mirror mirror) {
+        Key key = new Key(structure, rotation, mirror);
+        CompletableFuture<Blueprint> future = blueprints.get(key);
+        if (future == null) {
+            StructureTemplateManager templates = level.getStructureManager();
+            HolderGetter<Block> blockLookup = level.holderLookup(Registries.BLOCK);
+            future = CompletableFuture.supplyAsync(() -> templates.get(structure)
+                .map(template -> StructureAnalyzer.compileBlueprint(template, blockLookup, structure, rotation, mirror))
+                .orElse(null), Util.backgroundExecutor());
+            blueprints.put(key, future);
+            // Missing structures and failed compiles are not cached, so they are retried next time
+            CompletableFuture<Blueprint> pending = future;
+            future.whenCompleteAsync((blueprint, error) -> {
+                // A stopping server runs this on the background thread; the cache is cleared on stop anyway
+                if (blueprint == null && level.getServer().isRunning()) {
+                    blueprints.remove(key, pending);
+                }
+            }, level.getServer());
+        }
+        return future;
+    }
+
+    /**
+     * Gets the upgrade blueprint from one structure to another (both unrotated), compiling it in the
+     * background on first use. Must be called on the server thread.
+     * @return Future of the upgrade, completing with null if either structure does not exist
+     */
+    public static CompletableFuture<Blueprint> getUpgradeAsync(ServerLevel level, ResourceLocation from, ResourceLocation to) {
+        UpgradeKey key = new UpgradeKey(from, to);
+        CompletableFuture<Blueprint> future = upgrades.get(key);
+        if (future == null) {
+            future = getAsync(level, from, Rotation.NONE, Mirror.NONE).thenCombineAsync(
+                getAsync(level, to, Rotation.NONE, Mirror.NONE),
+                (fromBlueprint, toBlueprint) -> fromBlueprint == null || toBlueprint == null
+                    ? null : StructureAnalyzer.compileUpgrade(fromBlueprint, toBlueprint),
+                Util.backgroundExecutor());
+            upgrades.put(key, future);
+            CompletableFuture<Blueprint> pending = future;
+            future.whenCompleteAsync((blueprint, error) -> {
+                if (blueprint == null && level.getServer().isRunning()) {
+                    upgrades.remove(key, pending);
+                }
+            }, level.getServer());
+        }
+        return future;
+    }
+
+    public static void invalidateAll() {
+        blueprints.clear();
+        upgrades.clear();
+    }
+
+    @SubscribeEvent
+    public static void onAddReloadListener(AddReloadListenerEvent event) {
+        event.addListener((ResourceManagerReloadListener) resourceManager -> invalidateAll());
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        invalidateAll();
+    }
+}
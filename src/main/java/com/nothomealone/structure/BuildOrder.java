@@ -0,0 +1,151 @@
+package com.nothomealone.structure;
+
+import net.minecraft.core.BlockPos;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Orders the steps of one priority band so the builder walks as little as possible.
+ * Steps are built layer by layer (bottom first, so blocks have support). Each layer is cut into
+ * strips along X that are narrower than the builder's reach, and the strips are swept in a
+ * serpentine: along +Z in one strip, back along -Z in the next. Every layer starts its sweep
+ * where the layer below ended, so consecutive steps stay within reach of a shared standing
+ * position and the builder only has to step along the strip.
+ */
+final class BuildOrder {
+    /** Width of a strip in blocks; a builder standing in the middle of a strip reaches across it */
+    static final int STRIP_WIDTH = 4;
+    // Low 20 bits of a packed sort key hold the step index
+    private static final int INDEX_MASK = (1 << 20) - 1;
+
+    private BuildOrder() {
+    }
+
+    /**
+     * Sorts the steps in [from, to) of the parallel step arrays in sweep order.
+     * The range must hold a single priority band.
+     */
+    static void sortBand(long[] positions, int[] stateIndices, byte[] priorities, int from, int to) {
+        int count = to - from;
+        if (count < 2) return;
+
+        int minY = Integer.MAX_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int minStrip = Integer.MAX_VALUE;
+        int maxStrip = Integer.MIN_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            long pos = positions[i];
+            int strip = Math.floorDiv(BlockPos.getX(pos), STRIP_WIDTH);
+            minY = Math.min(minY, BlockPos.getY(pos));
+            maxY = Math.max(maxY, BlockPos.getY(pos));
+            minStrip = Math.min(minStrip, strip);
+            maxStrip = Math.max(maxStrip, strip);
+            minZ = Math.min(minZ, BlockPos.getZ(pos));
+            maxZ = Math.max(maxZ, BlockPos.getZ(pos));
+        }
+        int strips = maxStrip - minStrip + 1;
+        int depth = maxZ - minZ + 1;
+
+        int[] layers = new int[count];
+        long[] sweeps = new long[count];
+        for (int i = 0; i < count; i++) {
+            long pos = positions[from + i];
+            int layer = BlockPos.getY(pos) - minY;
+            int strip = Math.floorDiv(BlockPos.getX(pos), STRIP_WIDTH) - minStrip;
+            int z = BlockPos.getZ(pos) - minZ;
+            int column = Math.floorMod(BlockPos.getX(pos), STRIP_WIDTH);
+            // Odd layers sweep the strips in reverse, so a layer starts where the one below ended
+            int stripOrder = (layer & 1) == 0 ? strip : strips - 1 - strip;
+            // Every other strip walks back along Z
+            boolean reverseZ = ((layer * strips + stripOrder) & 1) == 1;
+            int row = reverseZ ? depth - 1 - z : z;
+            // Rows alternate across the strip too, so the builder never jumps back to the strip edge
+            int col = (row & 1) == 0 ? column : STRIP_WIDTH - 1 - column;
+            layers[i] = layer;
+            sweeps[i] = (((long) stripOrder * depth + row) * STRIP_WIDTH) + col;
+        }
+
+        // A packed key holds the layer in 11 bits, the sweep position in 32 and the step index in 20
+        int[] order = new int[count];
+        if (count <= INDEX_MASK + 1 && maxY - minY < 1 << 11 && (long) strips * depth * STRIP_WIDTH <= 1L << 32) {
+            // Sort key per step, with the step index in the low bits so equal keys keep their order
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = ((long) layers[i] << 52) | (sweeps[i] << 20) | i;
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < count; i++) {
+                order[i] = (int) (keys[i] & INDEX_MASK);
+            }
+        } else {
+            // Too large to pack into one key; the comparator sort is stable, so equal keys keep their order too
+            Integer[] boxed = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                boxed[i] = i;
+            }
+            Arrays.sort(boxed, Comparator.<Integer>comparingInt(i -> layers[i]).thenComparingLong(i -> sweeps[i]));
+            for (int i = 0; i < count; i++) {
+                order[i] = boxed[i];
+            }
+        }
+
+        long[] sortedPositions = new long[count];
+        int[] sortedStates = new int[count];
+        byte[] sortedPriorities = new byte[count];
+        for (int i = 0; i < count; i++) {
+            int source = from + order[i];
+            sortedPositions[i] = positions[source];
+            sortedStates[i] = stateIndices[source];
+            sortedPriorities[i] = priorities[source];
+        }
+        System.arraycopy(sortedPositions, 0, positions, from, count);
+        System.arraycopy(sortedStates, 0, stateIndices, from, count);
+        System.arraycopy(sortedPriorities, 0, priorities, from, count);
+    }
+
+    /**
+     * Sorts every priority band of steps that are already sorted by priority.
+     */
+    static void sortBands(long[] positions, int[] stateIndices, byte[] priorities, int size) {
+        int start = 0;
+        for (int i = 1; i <= size; i++) {
+            if (i == size || priorities[i] != priorities[start]) {
+                sortBand(positions, stateIndices, priorities, start, i);
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * Counts how often a builder that can reach {@code reach} blocks has to move to a new standing
+     * position to build the steps in order, and how far it walks in total (in blocks, straight line
+     * between standing positions). Used to compare step orders in benchmarks and logs.
+     * @return {moves, distance}
+     */
+    static double[] estimateTravel(long[] positions, int size, int reach) {
+        if (size == 0) return new double[] {0, 0};
+        double reachSqr = (double) reach * reach;
+        int moves = 1;
+        double distance = 0;
+        long standing = positions[0];
+        for (int i = 1; i < size; i++) {
+            long pos = positions[i];
+            if (distSqr(standing, pos) > reachSqr) {
+                distance += Math.sqrt(distSqr(standing, pos));
+                standing = pos;
+                moves++;
+            }
+        }
+        return new double[] {moves, distance};
+    }
+
+    private static double distSqr(long a, long b) {
+        double dx = BlockPos.getX(a) - BlockPos.getX(b);
+        double dy = BlockPos.getY(a) - BlockPos.getY(b);
+        double dz = BlockPos.getZ(a) - BlockPos.getZ(b);
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -0,0 +1,212 @@
+package com.nothomealone.structure;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+import java.util.BitSet;
+import java.util.Set;
+
+/**
+ * Compares the remaining steps of a build task with what already stands in the world.
+ * Steps are grouped by chunk section and each section is read straight from its block palette.
+ * The palette is checked first, so a section that holds only air, a single block everywhere, or
+ * neither air nor any of its steps' blocks (or a compatible one) needs at most one read.
+ * Every step is classified as satisfied (the block or a compatible one is there, or a removal
+ * step's block is gone), needing clearing (something else is in the way, or the block to remove)
+ * or needing placement (air), and {@link #toDeltaTask} shrinks the task to the steps that are not
+ * satisfied, so rebuilding a partly standing structure only costs what is missing.
+ * Upgrade tasks also change the state of blocks that stay (e.g. stair facing), so for them the
+ * same block in another state still needs placement.
+ */
+public final class BuildSiteDiff {
+    public static final byte SATISFIED = 0;
+    public static final byte NEEDS_CLEARING = 1;
+    public static final byte NEEDS_PLACEMENT = 2;
+
+    private final BuildTask task;
+    private final int start;
+    private final byte[] classes;
+    private final boolean exactStates;
+    private int satisfied;
+    private int needsClearing;
+    private int needsPlacement;
+
+    private BuildSiteDiff(BuildTask task) {
+        this.task = task;
+        this.start = task.getCurrentStepIndex();
+        this.classes = new byte[task.getTotalSteps() - start];
+        this.exactStates = task.getUpgradeFrom() != null;
+    }
+
+    /**
+     * Classifies the remaining steps of a task against the loaded world.
+     * Steps in chunks that are not loaded count as needing placement (or clearing, for removals).
+     */
+    public static BuildSiteDiff compute(Level level, BuildTask task) {
+        BuildSiteDiff diff = new BuildSiteDiff(task);
+
+        // Group the remaining steps by chunk section
+        Long2ObjectMap<IntArrayList> sections = new Long2ObjectOpenHashMap<>();
+        for (int i = diff.start; i < task.getTotalSteps(); i++) {
+            long pos = task.getStepPos(i);
+            long section = SectionPos.asLong(SectionPos.blockToSectionCoord(BlockPos.getX(pos)),
+                SectionPos.blockToSectionCoord(BlockPos.getY(pos)), SectionPos.blockToSectionCoord(BlockPos.getZ(pos)));
+            sections.computeIfAbsent(section, key -> new IntArrayList()).add(i);
+        }
+
+        for (Long2ObjectMap.Entry<IntArrayList> entry : sections.long2ObjectEntrySet()) {
+            long section = entry.getLongKey();
+            LevelChunkSection chunkSection = getSection(level, section);
+            IntArrayList steps = entry.getValue();
+            if (chunkSection == null || chunkSection.hasOnlyAir()) {
+                for (int s = 0; s < steps.size(); s++) {
+                    int index = steps.getInt(s);
+                    if (!task.getStepState(index).isAir()) {
+                        diff.classify(index, NEEDS_PLACEMENT);
+                    } else {
+                        // A removal is done in an empty section; without a loaded chunk nothing is known
+                        diff.classify(index, chunkSection != null ? SATISFIED : NEEDS_CLEARING);
+                    }
+                }
+                continue;
+            }
+
+            PalettedContainer<BlockState> states = chunkSection.getStates();
+            Set<Block> required = new ReferenceOpenHashSet<>();
+            for (int s = 0; s < steps.size(); s++) {
+                required.add(task.getStepState(steps.getInt(s)).getBlock());
+            }
+            if (!states.maybeHas(state -> mayMatch(state, required))) {
+                // Every position holds a block that is neither air nor wanted: all of it is in the way
+                for (int s = 0; s < steps.size(); s++) {
+                    diff.classify(steps.getInt(s), NEEDS_CLEARING);
+                }
+                continue;
+            }
+
+            long firstPos = task.getStepPos(steps.getInt(0));
+            BlockState first = chunkSection.getBlockState(BlockPos.getX(firstPos) & 15, BlockPos.getY(firstPos) & 15, BlockPos.getZ(firstPos) & 15);
+            if (!states.maybeHas(state -> state != first)) {
+                // The whole section is one block, so the read above stands for every step
+                for (int s = 0; s < steps.size(); s++) {
+                    int index = steps.getInt(s);
+                    diff.classify(index, classify(first, task.getStepState(index), diff.exactStates));
+                }
+                continue;
+            }
+
+            for (int s = 0; s < steps.size(); s++) {
+                int index = steps.getInt(s);
+                long pos = task.getStepPos(index);
+                BlockState current = chunkSection.getBlockState(BlockPos.getX(pos) & 15, BlockPos.getY(pos) & 15, BlockPos.getZ(pos) & 15);
+                diff.classify(index, classify(current, task.getStepState(index), diff.exactStates));
+            }
+        }
+        return diff;
+    }
+
+    private static byte classify(BlockState current, BlockState requiredState, boolean exactStates) {
+        Block required = requiredState.getBlock();
+        if (current.isAir()) {
+            // Removal steps (air) are done once the block is gone
+            return required.defaultBlockState().isAir() ? SATISFIED : NEEDS_PLACEMENT;
+        }
+        if (required.defaultBlockState().isAir()) {
+            return NEEDS_CLEARING;
+        }
+        if (current.is(required)) {
+            return exactStates && !current.equals(requiredState) ? NEEDS_PLACEMENT : SATISFIED;
+        }
+        if (BlockCompatibility.areCompatible(current.getBlock(), required)) {
+            return SATISFIED;
+        }
+        return NEEDS_CLEARING;
+    }
+
+    /**
+     * Checks if a block in the world could satisfy, or be removed for, one of the given required blocks.
+     * Air always could: it is either a finished removal or a spot that needs placement, which only a read tells apart.
+     */
+    private static boolean mayMatch(BlockState state, Set<Block> required) {
+        if (state.isAir()) {
+            return true;
+        }
+        Block block = state.getBlock();
+        if (required.contains(block)) {
+            return true;
+        }
+        for (Block requiredBlock : required) {
+            if (BlockCompatibility.areCompatible(block, requiredBlock)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static LevelChunkSection getSection(Level level, long section) {
+        int sectionY = SectionPos.y(section);
+        if (sectionY < level.getMinSection() || sectionY >= level.getMaxSection()) {
+            return null;
+        }
+        LevelChunk chunk = level.getChunkSource().getChunkNow(SectionPos.x(section), SectionPos.z(section));
+        if (chunk == null) {
+            return null;
+        }
+        return chunk.getSection(level.getSectionIndexFromSectionY(sectionY));
+    }
+
+    private void classify(int stepIndex, byte result) {
+        classes[stepIndex - start] = result;
+        switch (result) {
+            case SATISFIED -> satisfied++;
+            case NEEDS_CLEARING -> needsClearing++;
+            default -> needsPlacement++;
+        }
+    }
+
+    /**
+     * Gets the class of a remaining step ({@link #SATISFIED}, {@link #NEEDS_CLEARING} or {@link #NEEDS_PLACEMENT}).
+     */
+    public byte getStepClass(int stepIndex) {
+        return classes[stepIndex - start];
+    }
+
+    public int getSatisfied() {
+        return satisfied;
+    }
+
+    public int getNeedsClearing() {
+        return needsClearing;
+    }
+
+    public int getNeedsPlacement() {
+        return needsPlacement;
+    }
+
+    /**
+     * Creates a task with only the remaining steps that are not satisfied, in their original order.
+     * Returns the task itself if nothing is satisfied.
+     */
+    public BuildTask toDeltaTask() {
+        if (satisfied == 0 && start == 0) {
+            return task;
+        }
+        BitSet keep = new BitSet(task.getTotalSteps());
+        for (int i = 0; i < classes.length; i++) {
+            if (classes[i] != SATISFIED) {
+                keep.set(start + i);
+            }
+        }
+        return task.subset(keep);
+    }
+}
@@ -1,87 +1,374 @@
 package com.nothomealone.structure;
 
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
  * Represents a building task for the Builder NPC.
- * Contains all blocks that need to be placed in order.
+ * Contains all blocks that need to be placed in order (upgrade tasks also remove blocks, as air steps).
+ * Steps are stored as parallel arrays (packed position, palette index, priority)
+ * and read through a reused {@link BuildStep} view, so a task costs a few arrays
+ * instead of one object per block.
+ * Counters of the blocks still left to place (per block and per {@link BlockCompatibility} group)
+ * are kept up to date as steps complete, so material queries never scan the steps.
  */
 public class BuildTask {
+    private static final int INITIAL_CAPACITY = 64;
+    
     private final String structureName;
     private final BlockPos stationPos;
-    private final List<BuildStep> steps;
+    private BlockState[] palette;
+    private int paletteSize;
+    private long[] positions;
+    private int[] stateIndices;
+    private byte[] priorities;
+    private int size;
+    private final BuildStep cursor = new BuildStep(this);
     private int currentStep = 0;
     private boolean completed = false;
+    // Remaining-material counters, rebuilt lazily after steps are added or progress is restored
+    private final Map<Block, Integer> remainingByBlock = new HashMap<>();
+    private final Map<Block, Integer> remainingView = Collections.unmodifiableMap(remainingByBlock);
+    private int[] remainingByGroup = new int[0];
+    private int[] stateGroups = new int[0];
+    private boolean countersValid = false;
+    private int compatibilityVersion = -1;
+    // Incremented whenever the steps or the progress change
+    private int modCount = 0;
+    // Structure the blueprint of the steps upgrades from, or null for a full structure
+    private String upgradeFrom = null;
     
     public BuildTask(String structureName, BlockPos stationPos) {
         this.structureName = structureName;
         this.stationPos = stationPos;
-        this.steps = new ArrayList<>();
+        this.palette = new BlockState[8];
+        this.positions = new long[INITIAL_CAPACITY];
+        this.stateIndices = new int[INITIAL_CAPACITY];
+        this.priorities = new byte[INITIAL_CAPACITY];
+    }
+    
+    /**
+     * Creates a task from already sorted steps. The palette may be shared (it is copied before
+     * any new state is added); the step arrays are owned by the task.
+     */
+    BuildTask(String structureName, BlockPos stationPos, BlockState[] palette,
+              long[] positions, int[] stateIndices, byte[] priorities) {
+        this.structureName = structureName;
+        this.stationPos = stationPos;
+        this.palette = palette;
+        this.paletteSize = palette.length;
+        this.positions = positions;
+        this.stateIndices = stateIndices;
+        this.priorities = priorities;
+        this.size = positions.length;
+        this.completed = size == 0;
     }
     
     /**
      * Adds a build step (a block to place).
      * @param pos Position to place block
      * @param state Block state to place
-     * @param priority Higher priority = built first (0 = normal)
+     * @param priority Higher priority = built first (0 = normal), -128 to 127
      */
     public void addStep(BlockPos pos, BlockState state, int priority) {
-        steps.add(new BuildStep(pos, state, priority));
+        if (size == positions.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            positions = Arrays.copyOf(positions, capacity);
+            stateIndices = Arrays.copyOf(stateIndices, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+        }
+        positions[size] = pos.asLong();
+        stateIndices[size] = paletteIndexOf(state);
+        priorities[size] = (byte) priority;
+        size++;
+        completed = false;
+        countersValid = false;
+        modCount++;
+    }
+    
+    private int paletteIndexOf(BlockState state) {
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette[i] == state) {
+                return i;
+            }
+        }
+        if (paletteSize == palette.length) {
+            palette = Arrays.copyOf(palette, Math.max(8, paletteSize * 2));
+        }
+        palette[paletteSize] = state;
+        return paletteSize++;
     }
     
     /**
-     * Sorts steps by priority (higher first).
+     * Sorts steps by priority (higher first). Steps of equal priority are ordered
+     * layer by layer in a serpentine sweep (see {@link BuildOrder}), so the builder
+     * can place several of them from one standing position.
      */
     public void sortSteps() {
-        steps.sort((a, b) -> Integer.compare(b.priority, a.priority));
+        // Counting sort over the 256 possible priorities
+        int[] starts = new int[257];
+        for (int i = 0; i < size; i++) {
+            starts[127 - priorities[i] + 1]++;
+        }
+        for (int b = 1; b < starts.length; b++) {
+            starts[b] += starts[b - 1];
+        }
+        
+        long[] sortedPositions = new long[positions.length];
+        int[] sortedStates = new int[stateIndices.length];
+        byte[] sortedPriorities = new byte[priorities.length];
+        for (int i = 0; i < size; i++) {
+            int target = starts[127 - priorities[i]]++;
+            sortedPositions[target] = positions[i];
+            sortedStates[target] = stateIndices[i];
+            sortedPriorities[target] = priorities[i];
+        }
+        positions = sortedPositions;
+        stateIndices = sortedStates;
+        priorities = sortedPriorities;
+        BuildOrder.sortBands(positions, stateIndices, priorities, size);
+        cursor.moveTo(-1);
+        countersValid = false;
+        modCount++;
+    }
+    
+    /**
+     * Creates a new task with only the given steps, in their current order and without progress.
+     */
+    BuildTask subset(BitSet steps) {
+        int count = steps.cardinality();
+        long[] subsetPositions = new long[count];
+        int[] subsetStates = new int[count];
+        byte[] subsetPriorities = new byte[count];
+        int target = 0;
+        for (int i = steps.nextSetBit(0); i >= 0 && i < size; i = steps.nextSetBit(i + 1)) {
+            subsetPositions[target] = positions[i];
+            subsetStates[target] = stateIndices[i];
+            subsetPriorities[target] = priorities[i];
+            target++;
+        }
+        BuildTask subset = new BuildTask(structureName, stationPos, Arrays.copyOf(palette, paletteSize),
+            Arrays.copyOf(subsetPositions, target), Arrays.copyOf(subsetStates, target), Arrays.copyOf(subsetPriorities, target));
+        subset.setUpgradeFrom(upgradeFrom);
+        return subset;
+    }
+    
+    void setUpgradeFrom(@Nullable String upgradeFrom) {
+        this.upgradeFrom = upgradeFrom;
+    }
+    
+    /**
+     * Gets the structure the blueprint of this task upgrades from, or null if it builds a full structure.
+     */
+    @Nullable
+    public String getUpgradeFrom() {
+        return upgradeFrom;
+    }
+    
+    /**
+     * Saves the whole task: its structure, the steps as packed arrays with a block state palette,
+     * and the completed steps as a bitset.
+     * The steps are saved in full because repair and delta tasks are subsets that the blueprint alone cannot rebuild.
+     */
+    public CompoundTag save() {
+        CompoundTag tag = new CompoundTag();
+        tag.putString("Structure", structureName);
+        if (upgradeFrom != null) {
+            tag.putString("UpgradeFrom", upgradeFrom);
+        }
+        
+        ListTag paletteTag = new ListTag();
+        for (int i = 0; i < paletteSize; i++) {
+            paletteTag.add(NbtUtils.writeBlockState(palette[i]));
+        }
+        tag.put("Palette", paletteTag);
+        tag.putLongArray("Positions", Arrays.copyOf(positions, size));
+        if (paletteSize <= 256) {
+            byte[] states = new byte[size];
+            for (int i = 0; i < size; i++) {
+                states[i] = (byte) stateIndices[i];
+            }
+            tag.putByteArray("States", states);
+        } else {
+            tag.putIntArray("States", Arrays.copyOf(stateIndices, size));
+        }
+        tag.putByteArray("Priorities", Arrays.copyOf(priorities, size));
+        
+        // Steps are completed in order for now, so this is a prefix
+        BitSet completedSteps = new BitSet(size);
+        completedSteps.set(0, currentStep);
+        tag.putLongArray("Completed", completedSteps.toLongArray());
+        return tag;
+    }
+    
+    /**
+     * Restores a task saved with {@link #save}.
+     * @return The task, or null if the data is damaged or names blocks that do not exist any more
+     */
+    @Nullable
+    public static BuildTask load(CompoundTag tag, BlockPos stationPos, HolderGetter<Block> blockLookup) {
+        ListTag paletteTag = tag.getList("Palette", Tag.TAG_COMPOUND);
+        BlockState[] palette = new BlockState[paletteTag.size()];
+        for (int i = 0; i < palette.length; i++) {
+            CompoundTag stateTag = paletteTag.getCompound(i);
+            palette[i] = NbtUtils.readBlockState(blockLookup, stateTag);
+            // Unknown blocks are read as air, which would turn the step into a removal
+            if (!BuiltInRegistries.BLOCK.getKey(palette[i].getBlock()).toString().equals(stateTag.getString("Name"))) {
+                return null;
+            }
+        }
+        
+        long[] positions = tag.getLongArray("Positions");
+        byte[] priorities = tag.getByteArray("Priorities");
+        int[] stateIndices;
+        if (tag.contains("States", Tag.TAG_BYTE_ARRAY)) {
+            byte[] states = tag.getByteArray("States");
+            stateIndices = new int[states.length];
+            for (int i = 0; i < states.length; i++) {
+                stateIndices[i] = states[i] & 0xFF;
+            }
+        } else {
+            stateIndices = tag.getIntArray("States");
+        }
+        if (stateIndices.length != positions.length || priorities.length != positions.length) {
+            return null;
+        }
+        for (int stateIndex : stateIndices) {
+            if (stateIndex >= palette.length) return null;
+        }
+        
+        BuildTask task = new BuildTask(tag.getString("Structure"), stationPos, palette, positions, stateIndices, priorities);
+        task.setUpgradeFrom(tag.contains("UpgradeFrom") ? tag.getString("UpgradeFrom") : null);
+        BitSet completedSteps = BitSet.valueOf(tag.getLongArray("Completed"));
+        task.currentStep = Math.min(completedSteps.nextClearBit(0), task.size);
+        task.completed = task.currentStep >= task.size;
+        return task;
     }
     
     /**
      * Gets the next step to build.
+     * The returned view is reused by this task: it stays valid until the next call to this method.
      */
     public BuildStep getNextStep() {
-        if (currentStep >= steps.size()) {
+        if (currentStep >= size) {
             completed = true;
             return null;
         }
-        return steps.get(currentStep);
+        return cursor.moveTo(currentStep);
     }
     
     /**
      * Marks current step as completed and moves to next.
      */
     public void completeCurrentStep() {
+        if (currentStep < size && countersValid && compatibilityVersion == BlockCompatibility.getVersion()) {
+            int stateIndex = stateIndices[currentStep];
+            remainingByBlock.computeIfPresent(palette[stateIndex].getBlock(), (b, count) -> count > 1 ? count - 1 : null);
+            int group = stateGroups[stateIndex];
+            if (group != BlockCompatibility.NO_GROUP) {
+                remainingByGroup[group]--;
+            }
+        } else {
+            countersValid = false;
+        }
         currentStep++;
-        if (currentStep >= steps.size()) {
+        modCount++;
+        if (currentStep >= size) {
             completed = true;
         }
     }
     
     /**
-     * Gets required materials for this build task.
+     * Gets the materials still needed for this build task (read-only, kept up to date as steps complete).
      */
     public Map<Block, Integer> getRequiredMaterials() {
-        Map<Block, Integer> materials = new HashMap<>();
-        for (BuildStep step : steps) {
-            Block block = step.state.getBlock();
-            materials.put(block, materials.getOrDefault(block, 0) + 1);
+        ensureCounters();
+        return remainingView;
+    }
+    
+    /**
+     * Gets how many of the remaining steps need exactly this block.
+     */
+    public int getRemaining(Block block) {
+        ensureCounters();
+        return remainingByBlock.getOrDefault(block, 0);
+    }
+    
+    /**
+     * Gets how many of the remaining steps can be built with this block (itself or a compatible block).
+     */
+    public int getRemainingCompatible(Block block) {
+        ensureCounters();
+        int group = BlockCompatibility.groupOf(block);
+        if (group == BlockCompatibility.NO_GROUP) {
+            return remainingByBlock.getOrDefault(block, 0);
         }
-        return materials;
+        return remainingByGroup[group];
+    }
+    
+    /**
+     * Checks if the block is (or is compatible with) something still left to build.
+     */
+    public boolean needsCompatible(Block block) {
+        return getRemainingCompatible(block) > 0;
+    }
+    
+    private void ensureCounters() {
+        // Group ids change when tags are reloaded
+        if (countersValid && compatibilityVersion == BlockCompatibility.getVersion()) return;
+        
+        remainingByBlock.clear();
+        remainingByGroup = new int[BlockCompatibility.groupCount()];
+        stateGroups = new int[paletteSize];
+        // Count per palette entry first, then fold into blocks and groups
+        int[] perState = new int[paletteSize];
+        for (int i = currentStep; i < size; i++) {
+            perState[stateIndices[i]]++;
+        }
+        for (int i = 0; i < paletteSize; i++) {
+            Block block = palette[i].getBlock();
+            stateGroups[i] = BlockCompatibility.groupOf(block);
+            // Removal steps need no material
+            if (perState[i] == 0 || palette[i].isAir()) continue;
+            remainingByBlock.merge(block, perState[i], Integer::sum);
+            if (stateGroups[i] != BlockCompatibility.NO_GROUP) {
+                remainingByGroup[stateGroups[i]] += perState[i];
+            }
+        }
+        countersValid = true;
+        compatibilityVersion = BlockCompatibility.getVersion();
     }
     
     public boolean isCompleted() {
         return completed;
     }
     
+    /**
+     * Incremented on every change to the steps or the progress, so callers can cache decisions based on the task.
+     */
+    public int getModCount() {
+        return modCount;
+    }
+    
     public int getTotalSteps() {
-        return steps.size();
+        return size;
     }
     
     public int getCompletedSteps() {
@@ -100,10 +387,12 @@ public class BuildTask {
      * Sets the current step index (used when restoring progress from NBT).
      */
     public void setCurrentStepIndex(int index) {
-        if (index >= 0 && index <= steps.size()) {
+        if (index >= 0 && index <= size) {
             this.currentStep = index;
-            this.completed = (index >= steps.size());
-            System.out.println("[BuildTask] Restored progress: " + currentStep + "/" + steps.size());
+            this.completed = (index >= size);
+            this.countersValid = false;
+            this.modCount++;
+            Diagnostics.debug(DiagCategory.TASKS, null, () -> "Restored progress: " + currentStep + "/" + size);
         }
     }
     
@@ -116,24 +405,94 @@ public class BuildTask {
     }
     
     /**
-     * Gets all build steps without consuming them.
+     * Gets the position of a step, packed with {@link BlockPos#asLong}.
      */
-    public List<BuildStep> getAllSteps() {
-        return steps;
+    public long getStepPos(int index) {
+        return positions[index];
+    }
+    
+    public BlockState getStepState(int index) {
+        return palette[stateIndices[index]];
+    }
+    
+    public int getStepPriority(int index) {
+        return priorities[index];
     }
     
     /**
-     * Represents a single block placement step.
+     * Flyweight view of a single block placement step.
+     * Reads straight from the task's arrays; only the immutable position is cached per step.
      */
     public static class BuildStep {
-        public final BlockPos pos;
-        public final BlockState state;
-        public final int priority;
-        
-        public BuildStep(BlockPos pos, BlockState state, int priority) {
-            this.pos = pos;
-            this.state = state;
-            this.priority = priority;
+        private final BuildTask task;
+        private int index = -1;
+        private BlockPos pos;
+        private final BlockPos.MutableBlockPos scratchPos = new BlockPos.MutableBlockPos();
+        
+        private BuildStep(BuildTask task) {
+            this.task = task;
+        }
+        
+        private BuildStep moveTo(int index) {
+            if (this.index != index) {
+                this.index = index;
+                this.pos = null;
+            }
+            return this;
+        }
+        
+        public int index() {
+            return index;
+        }
+        
+        /**
+         * Gets the position of this step packed as a long (see {@link BlockPos#asLong}), without allocating.
+         */
+        public long posLong() {
+            return task.positions[index];
+        }
+        
+        /**
+         * Sets the given mutable position to the position of this step.
+         * @return The given position
+         */
+        public BlockPos.MutableBlockPos pos(BlockPos.MutableBlockPos into) {
+            return into.set(task.positions[index]);
+        }
+        
+        /**
+         * Gets the position of this step as an immutable BlockPos, allocated once per step.
+         * For positions that are kept or handed to the game; checks in loops use {@link #posLong} instead.
+         */
+        public BlockPos pos() {
+            if (pos == null) {
+                pos = BlockPos.of(task.positions[index]);
+            }
+            return pos;
+        }
+        
+        public BlockState state() {
+            return task.getStepState(index);
+        }
+        
+        public int priority() {
+            return task.priorities[index];
+        }
+        
+        /**
+         * Checks if this step removes the block at its position (upgrade builds) instead of placing one.
+         */
+        public boolean isRemoval() {
+            return state().isAir();
+        }
+        
+        /**
+         * Checks if this step uses up a block: not for removals, and not for upgrade steps that only
+         * change the state of a block that is already there.
+         */
+        public boolean needsMaterial(Level level) {
+            if (isRemoval()) return false;
+            return task.upgradeFrom == null || !level.getBlockState(pos(scratchPos)).is(state().getBlock());
         }
     }
 }
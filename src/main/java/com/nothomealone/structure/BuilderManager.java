@@ -1,22 +1,40 @@
 package com.nothomealone.structure;
 
+import com.nothomealone.NotHomeAlone;
+import com.nothomealone.block.custom.BaseStationBlock;
 import com.nothomealone.block.entity.StationBlockEntity;
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
+import com.nothomealone.entity.WorkerRegistry;
 import com.nothomealone.entity.custom.BuilderEntity;
+import com.nothomealone.event.BuilderTaskManager;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.GlobalPos;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
-import net.minecraft.world.entity.Entity;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages the building process when a new Builder Station is placed.
  */
+@Mod.EventBusSubscriber(modid = NotHomeAlone.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public class BuilderManager {
+    // Stations whose build task is being loaded. Concurrent because a stopping server runs the
+    // handoff on the background thread instead of queueing it.
+    private static final Set<GlobalPos> pendingTasks = ConcurrentHashMap.newKeySet();
     
     /**
      * Initializes the building process for a newly placed Builder Station.
-     * Loads the structure file and assigns it to the builder.
+     * Loads the structure file in the background and assigns it to the builder when ready.
      */
     public static void initializeBuildTask(Level level, BlockPos stationPos, String structureLevel) {
         if (!(level instanceof ServerLevel serverLevel)) return;
@@ -27,29 +45,96 @@ public class BuilderManager {
         // Check if structure already built
         if (stationEntity.isStructureBuilt()) return;
         
+        loadBuildTask(serverLevel, stationPos, structureLevel);
+    }
+    
+    /**
+     * Loads the build task of a station off the server thread and assigns it to the station's
+     * builder on the server thread once it is ready. Does nothing if a task for the station is
+     * already being loaded.
+     * Progress is taken from the world: steps whose block already stands are dropped from the task
+     * (see {@link BuildSiteDiff}), so a task that is loaded again continues where the builder stopped.
+     */
+    public static void loadBuildTask(ServerLevel level, BlockPos stationPos, String structureLevel) {
+        GlobalPos key = GlobalPos.of(level.dimension(), stationPos);
+        if (!pendingTasks.add(key)) return;
+        
         // Load the structure file (path is relative to data/nothomealone/structures/)
-        ResourceLocation structureLocation = new ResourceLocation("nothomealone", 
-            "builder/builder_level_" + structureLevel);
+        ResourceLocation structureLocation = structureFor(structureLevel);
+        
+        Diagnostics.debug(DiagCategory.TASKS, null, () -> "Loading build task " + structureLocation + " for station at " + stationPos);
+        
+        // A station whose structure of a lower level stands only builds the difference to the new level
+        int builtLevel = level.getBlockEntity(stationPos) instanceof StationBlockEntity stationEntity ? stationEntity.getBuiltLevel() : 0;
+        int targetLevel = Integer.parseInt(structureLevel);
+        CompletableFuture<BuildTask> taskFuture;
+        if (builtLevel > 0 && builtLevel < targetLevel) {
+            Diagnostics.debug(DiagCategory.TASKS, null, () -> "Upgrading station at " + stationPos + " from level " + builtLevel);
+            taskFuture = StructureAnalyzer.analyzeUpgradeAsync(level, structureFor(String.valueOf(builtLevel)), structureLocation, stationPos);
+        } else {
+            taskFuture = StructureAnalyzer.analyzeStructureAsync(level, structureLocation, stationPos);
+        }
+        
+        // Analyze structure in the background, then hand the task over on the server thread
+        taskFuture
+            .whenCompleteAsync((task, error) -> {
+                pendingTasks.remove(key);
+                if (!level.getServer().isRunning()) {
+                    return;
+                } else if (error != null) {
+                    // Structure file might not exist yet
+                    Diagnostics.warn(DiagCategory.TASKS, null, () -> "Could not load structure " + structureLocation + " for station at " + stationPos, error);
+                } else if (task == null) {
+                    Diagnostics.warn(DiagCategory.TASKS, null, () -> "Failed to create build task for station at " + stationPos + " - structure " + structureLocation + " might not exist");
+                } else if (level.getBlockEntity(stationPos) instanceof StationBlockEntity stationEntity
+                        && !stationEntity.isStructureBuilt()) {
+                    // The station may have been removed or finished while the task was loading
+                    stationEntity.setStructureId(structureLocation);
+                    BuildSiteDiff diff = BuildSiteDiff.compute(level, task);
+                    BuildTask delta = diff.toDeltaTask();
+                    Diagnostics.info(DiagCategory.TASKS, null, () -> "Build task for station at " + stationPos + " created with " + delta.getTotalSteps()
+                        + " of " + task.getTotalSteps() + " steps (" + diff.getNeedsPlacement() + " to place, " + diff.getNeedsClearing() + " to clear first)");
+                    // Find or create builder entity (try multiple times as entity might spawn later)
+                    assignTaskToBuilder(level, stationPos, delta, 0);
+                }
+            }, level.getServer());
+    }
+    
+    /**
+     * Starts upgrading a builder station to the next level once its current structure is built.
+     * The station level is stored in the block state, so the upgrade resumes after a restart.
+     * @return false if the station is not built yet or already at the highest level
+     */
+    public static boolean upgradeStation(ServerLevel level, BlockPos stationPos) {
+        BlockState state = level.getBlockState(stationPos);
+        if (!(state.getBlock() instanceof BaseStationBlock)) return false;
+        if (!(level.getBlockEntity(stationPos) instanceof StationBlockEntity stationEntity)) return false;
+        if (!stationEntity.isStructureBuilt()) return false;
         
-        System.out.println("[BuilderManager] Initializing build task for level " + structureLevel);
-        System.out.println("[BuilderManager] Looking for structure: " + structureLocation);
+        int nextLevel = state.getValue(BaseStationBlock.LEVEL) + 1;
+        if (!BaseStationBlock.LEVEL.getPossibleValues().contains(nextLevel)) return false;
         
-        try {
-            // Analyze structure and create build task
-            BuildTask task = StructureAnalyzer.analyzeStructure(serverLevel, structureLocation, stationPos);
-            
-            if (task != null) {
-                System.out.println("[BuilderManager] Build task created with " + task.getTotalSteps() + " steps");
-                // Find or create builder entity (try multiple times as entity might spawn later)
-                assignTaskToBuilder(serverLevel, stationPos, task, 0);
-            } else {
-                System.out.println("[BuilderManager] Failed to create build task - structure might not exist");
-            }
-        } catch (Exception e) {
-            // Structure file might not exist yet
-            System.err.println("[BuilderManager] Could not load structure for builder station: " + e.getMessage());
-            e.printStackTrace();
+        level.setBlock(stationPos, state.setValue(BaseStationBlock.LEVEL, nextLevel), 3);
+        stationEntity.setStructureBuilt(false);
+        // Drop the finished task, so it is not taken for the finished upgrade while the new one loads
+        BuilderEntity builder = WorkerRegistry.getWorker(level, stationPos, BuilderEntity.class);
+        if (builder != null) {
+            builder.setBuildTask(null);
         }
+        BuilderTaskManager.registerStation(level, stationPos, String.valueOf(nextLevel));
+        loadBuildTask(level, stationPos, String.valueOf(nextLevel));
+        return true;
+    }
+    
+    private static ResourceLocation structureFor(String structureLevel) {
+        return new ResourceLocation("nothomealone", "builder/builder_level_" + structureLevel);
+    }
+    
+    /**
+     * Checks if the build task of a station is still being loaded.
+     */
+    public static boolean isTaskPending(ServerLevel level, BlockPos stationPos) {
+        return pendingTasks.contains(GlobalPos.of(level.dimension(), stationPos));
     }
     
     /**
@@ -58,7 +143,7 @@ public class BuilderManager {
     private static void assignTaskToBuilder(ServerLevel level, BlockPos stationPos, BuildTask task, int retryCount) {
         BuilderEntity builder = findBuilderForStation(level, stationPos);
         if (builder != null) {
-            System.out.println("[BuilderManager] Assigning build task to builder");
+            Diagnostics.debug(DiagCategory.TASKS, builder, () -> "Assigning build task of station at " + stationPos);
             builder.setBuildTask(task);
         } else if (retryCount < 20) {
             // Builder might not have spawned yet, retry in 10 ticks (0.5 seconds)
@@ -67,7 +152,7 @@ public class BuilderManager {
                 () -> assignTaskToBuilder(level, stationPos, task, retryCount + 1)
             ));
         } else {
-            System.err.println("[BuilderManager] Could not find builder after 20 retries");
+            Diagnostics.warn(DiagCategory.TASKS, null, () -> "Could not find builder of station at " + stationPos + " after 20 retries");
         }
     }
     
@@ -75,21 +160,19 @@ public class BuilderManager {
      * Finds the builder entity associated with a station.
      */
     private static BuilderEntity findBuilderForStation(ServerLevel level, BlockPos stationPos) {
-        System.out.println("[BuilderManager] Searching for builder at station: " + stationPos);
-        int builderCount = 0;
-        for (Entity entity : level.getAllEntities()) {
-            if (entity instanceof BuilderEntity builder) {
-                builderCount++;
-                BlockPos builderStation = builder.getStationPos();
-                System.out.println("[BuilderManager] Found builder #" + builderCount + " with station: " + builderStation);
-                if (builderStation != null && builderStation.equals(stationPos)) {
-                    System.out.println("[BuilderManager] Match! Returning this builder");
-                    return builder;
-                }
-            }
+        BuilderEntity builder = WorkerRegistry.getWorker(level, stationPos, BuilderEntity.class);
+        if (builder == null) {
+            Diagnostics.debug(DiagCategory.TASKS, null, () -> "No builder registered for station at " + stationPos);
         }
-        System.out.println("[BuilderManager] No matching builder found (checked " + builderCount + " builders)");
-        return null;
+        return builder;
+    }
+    
+    /**
+     * Forgets the tasks that were still loading, since their handoff is dropped once the server stops.
+     */
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        pendingTasks.clear();
     }
     
     /**
@@ -1,122 +1,119 @@
 package com.nothomealone.structure;
 
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.Mirror;
+import net.minecraft.world.level.block.Rotation;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Analyzes NBT structures and creates BuildTasks for the Builder NPC.
  */
 public class StructureAnalyzer {
+    // Upgrade steps removing old blocks come before everything else
+    private static final int REMOVAL_PRIORITY = 110;
     
     /**
      * Analyzes a structure and creates a BuildTask.
-     * Special handling:
-     * - Ender Chests mark the station position (not built)
-     * - Dirt blocks under important blocks (priority)
-     * - Crafting tables (high priority)
-     * - Clears obstacles before building
+     * The structure is compiled into a {@link Blueprint} once on a background thread and cached,
+     * so this never blocks the server thread; for a cached structure the future is already complete
+     * and only the translation of the blueprint to the station position is left.
+     * Must be called on the server thread.
      * 
      * @param level Server level
      * @param structurePath Path to structure
      * @param stationPos Position of the station block (where Ender Chest is in structure)
-     * @return BuildTask or null if structure not found
+     * @return Future of the BuildTask, completing with null if the structure was not found
+     */
+    public static CompletableFuture<BuildTask> analyzeStructureAsync(ServerLevel level, ResourceLocation structurePath, BlockPos stationPos) {
+        return BlueprintCache.getAsync(level, structurePath, Rotation.NONE, Mirror.NONE)
+            .thenApply(blueprint -> blueprint == null ? null : blueprint.createTask(stationPos));
+    }
+    
+    /**
+     * Creates the BuildTask upgrading a station's structure from one level's structure to another's.
+     * Only the block-level difference is built (see {@link #compileUpgrade}); the upgrade is compiled
+     * once in the background and cached like a blueprint.
+     * Must be called on the server thread.
+     * 
+     * @return Future of the BuildTask, completing with null if either structure was not found
+     */
+    public static CompletableFuture<BuildTask> analyzeUpgradeAsync(ServerLevel level, ResourceLocation fromStructure,
+                                                                   ResourceLocation toStructure, BlockPos stationPos) {
+        return BlueprintCache.getUpgradeAsync(level, fromStructure, toStructure)
+            .thenApply(blueprint -> blueprint == null ? null : blueprint.createTask(stationPos));
+    }
+    
+    /**
+     * Compiles a loaded structure template into a station-relative blueprint.
+     * Needs no level, only a block lookup to read the template palette, and only reads the
+     * template, so it is safe to run off the server thread.
+     * Special handling:
+     * - Ender Chests mark the station position (not built)
+     * - Grass blocks are built as dirt
+     * - Dirt blocks under crafting tables (priority)
+     * - Crafting tables (high priority)
+     * 
+     * The structure starts 1 block below the station and is centered horizontally on it;
+     * rotation and mirror are applied around the station so it stays in place.
      */
-    public static BuildTask analyzeStructure(ServerLevel level, ResourceLocation structurePath, BlockPos stationPos) {
-        Optional<StructureTemplate> templateOpt = StructureLoader.getTemplate(level, structurePath);
+    static Blueprint compileBlueprint(StructureTemplate template, HolderGetter<Block> blockLookup, ResourceLocation structurePath,
+                                      Rotation rotation, Mirror mirror) {
+        // Read the template's own palette and block list instead of running it through placeInWorld
+        CompoundTag nbt = template.save(new CompoundTag());
         
-        if (templateOpt.isEmpty()) {
-            return null;
+        ListTag paletteTag = nbt.contains("palettes", Tag.TAG_LIST)
+            ? nbt.getList("palettes", Tag.TAG_LIST).getList(0)
+            : nbt.getList("palette", Tag.TAG_COMPOUND);
+        BlockState[] templatePalette = new BlockState[paletteTag.size()];
+        for (int i = 0; i < templatePalette.length; i++) {
+            templatePalette[i] = NbtUtils.readBlockState(blockLookup, paletteTag.getCompound(i));
         }
         
-        StructureTemplate template = templateOpt.get();
-        BuildTask task = new BuildTask(structurePath.toString(), stationPos);
-        
-        // Get structure size
-        net.minecraft.core.Vec3i sizeVec = template.getSize();
-        BlockPos size = new BlockPos(sizeVec.getX(), sizeVec.getY(), sizeVec.getZ());
-        
-        // Calculate offset (structure 0,0,0 to station position)
-        // Ender Chest marks station block position, structure should start 1 block BELOW
-        // and centered horizontally
-        BlockPos offset = stationPos.offset(-size.getX() / 2, -1, -size.getZ() / 2);
-        
-        System.out.println("[StructureAnalyzer] Structure size: " + size);
-        System.out.println("[StructureAnalyzer] Station position: " + stationPos);
-        System.out.println("[StructureAnalyzer] Offset (structure starts 1 block below station): " + offset);
-        
-        // Use a custom processor to intercept blocks WITHOUT placing them
-        final java.util.List<StructureTemplate.StructureBlockInfo> capturedBlocks = new java.util.ArrayList<>();
-        final BlockPos finalOffset = offset; // Make offset final for lambda
-        
-        net.minecraft.world.level.levelgen.structure.templatesystem.StructureProcessor captureProcessor = 
-            new net.minecraft.world.level.levelgen.structure.templatesystem.StructureProcessor() {
-                @Override
-                public StructureTemplate.StructureBlockInfo processBlock(
-                    net.minecraft.world.level.LevelReader levelReader,
-                    BlockPos jigsawPos,
-                    BlockPos structurePos,
-                    StructureTemplate.StructureBlockInfo localInfo,
-                    StructureTemplate.StructureBlockInfo worldInfo,
-                    net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings settings
-                ) {
-                    // Capture the block info with processor's world position (already correct!)
-                    if (!worldInfo.state().isAir()) {
-                        BlockState state = worldInfo.state();
-                        
-                        // Replace grass blocks with dirt blocks for easier building
-                        if (state.is(Blocks.GRASS_BLOCK)) {
-                            state = Blocks.DIRT.defaultBlockState();
-                        }
-                        
-                        capturedBlocks.add(new StructureTemplate.StructureBlockInfo(
-                            worldInfo.pos(),  // Use processor's position directly
-                            state,
-                            worldInfo.nbt()
-                        ));
-                    }
-                    // Return null to prevent actual placement
-                    return null;
-                }
-                
-                @Override
-                protected net.minecraft.world.level.levelgen.structure.templatesystem.StructureProcessorType<?> getType() {
-                    return net.minecraft.world.level.levelgen.structure.templatesystem.StructureProcessorType.BLOCK_IGNORE;
-                }
-            };
-        
-        net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings settings = 
-            new net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings();
-        settings.setIgnoreEntities(true);
-        settings.addProcessor(captureProcessor);
-        
-        // Process structure without placing it
-        template.placeInWorld(
-            level,
-            offset,
-            offset,
-            settings,
-            level.getRandom(),
-            2  // flags
-        );
-        
-        java.util.List<StructureTemplate.StructureBlockInfo> blocks = capturedBlocks;
-        
-        System.out.println("[StructureAnalyzer] Total blocks in structure: " + blocks.size());
+        // Station block in template coordinates
+        net.minecraft.core.Vec3i size = template.getSize();
+        BlockPos pivot = new BlockPos(size.getX() / 2, 1, size.getZ() / 2);
+        StructurePlaceSettings settings = new StructurePlaceSettings()
+            .setRotation(rotation)
+            .setMirror(mirror)
+            .setRotationPivot(pivot);
         
-        int airCount = 0;
+        List<BlockState> palette = new ArrayList<>();
+        Map<BlockState, Integer> paletteIndex = new HashMap<>();
+        List<long[]> steps = new ArrayList<>(); // {offset, state index, priority}
         int enderChestCount = 0;
-        int validBlockCount = 0;
         
-        // Iterate through all blocks in structure
-        for (StructureTemplate.StructureBlockInfo blockInfo : blocks) {
-            BlockPos worldPos = blockInfo.pos();  // Already world position from processor
-            BlockState state = blockInfo.state();
+        ListTag blocksTag = nbt.getList("blocks", Tag.TAG_COMPOUND);
+        for (int i = 0; i < blocksTag.size(); i++) {
+            CompoundTag blockTag = blocksTag.getCompound(i);
+            int stateId = blockTag.getInt("state");
+            if (stateId < 0 || stateId >= templatePalette.length) continue;
+            
+            BlockState state = templatePalette[stateId].mirror(mirror).rotate(rotation);
+            
+            // Skip air blocks
+            if (state.isAir()) continue;
             
             // Skip Ender Chests (they mark the station position)
             if (state.is(Blocks.ENDER_CHEST)) {
@@ -124,27 +121,25 @@ public class StructureAnalyzer {
                 continue;
             }
             
-            // Skip air blocks
-            if (state.isAir()) {
-                airCount++;
-                continue;
+            // Replace grass blocks with dirt blocks for easier building
+            if (state.is(Blocks.GRASS_BLOCK)) {
+                state = Blocks.DIRT.defaultBlockState();
             }
             
-            validBlockCount++;
-            if (validBlockCount <= 5) {
-                System.out.println("[StructureAnalyzer] Found block: " + state.getBlock().getName().getString() + " at " + worldPos);
-            }
+            ListTag posTag = blockTag.getList("pos", Tag.TAG_INT);
+            BlockPos local = new BlockPos(posTag.getInt(0), posTag.getInt(1), posTag.getInt(2));
+            BlockPos offset = StructureTemplate.calculateRelativePosition(settings, local).subtract(pivot);
             
             // Determine priority
-            int priority = 0;
+            int priority;
             
             // Crafting table = highest priority (need it to craft)
             if (state.is(Blocks.CRAFTING_TABLE)) {
                 priority = 100;
                 
                 // Also add dirt block below crafting table with high priority
-                BlockPos below = worldPos.below();
-                task.addStep(below, Blocks.DIRT.defaultBlockState(), 99);
+                BlockState dirt = Blocks.DIRT.defaultBlockState();
+                steps.add(new long[] {offset.below().asLong(), indexOf(dirt, palette, paletteIndex), 99});
             }
             // Dirt foundation = medium priority
             else if (state.is(Blocks.DIRT)) {
@@ -155,15 +150,95 @@ public class StructureAnalyzer {
                 priority = 5;
             }
             
-            task.addStep(worldPos, state, priority);
+            steps.add(new long[] {offset.asLong(), indexOf(state, palette, paletteIndex), priority});
+        }
+        
+        final int enderChests = enderChestCount;
+        Diagnostics.info(DiagCategory.STRUCTURE, null, () -> "Compiled " + structurePath + " (" + rotation + ", " + mirror + "): "
+            + steps.size() + " steps, " + palette.size() + " states, " + enderChests + " ender chests");
+        
+        return toBlueprint(structurePath, null, rotation, mirror, palette, steps);
+    }
+    
+    /**
+     * Compiles the upgrade from one blueprint to another (e.g. builder level 1 to 2) of the same station.
+     * The upgrade only holds the difference on block state level: blocks of the new structure that are missing
+     * or different (also only in their state) in the old one, and air steps that remove old blocks the new structure does not have.
+     * Removals come first, the other steps keep their priority from the new blueprint.
+     */
+    static Blueprint compileUpgrade(Blueprint from, Blueprint to) {
+        Long2IntOpenHashMap fromByOffset = new Long2IntOpenHashMap(from.size());
+        fromByOffset.defaultReturnValue(-1);
+        for (int i = 0; i < from.size(); i++) {
+            fromByOffset.put(from.getOffset(i), i);
         }
         
-        System.out.println("[StructureAnalyzer] Stats: " + validBlockCount + " valid blocks, " + airCount + " air blocks, " + enderChestCount + " ender chests");
+        List<BlockState> palette = new ArrayList<>();
+        Map<BlockState, Integer> paletteIndex = new HashMap<>();
+        List<long[]> steps = new ArrayList<>(); // {offset, state index, priority}
+        LongOpenHashSet kept = new LongOpenHashSet();
+        for (int i = 0; i < to.size(); i++) {
+            long offset = to.getOffset(i);
+            kept.add(offset);
+            int old = fromByOffset.get(offset);
+            BlockState state = to.getState(i);
+            // Same block in another state (stair facing, slab type, ...) is rebuilt as well
+            if (old >= 0 && from.getState(old).equals(state)) continue;
+            steps.add(new long[] {offset, indexOf(state, palette, paletteIndex), to.getPriority(i)});
+        }
+        int removals = 0;
+        BlockState air = Blocks.AIR.defaultBlockState();
+        for (int i = 0; i < from.size(); i++) {
+            if (kept.contains(from.getOffset(i))) continue;
+            steps.add(new long[] {from.getOffset(i), indexOf(air, palette, paletteIndex), REMOVAL_PRIORITY});
+            removals++;
+        }
         
-        // Sort steps by priority
-        task.sortSteps();
+        final int removed = removals;
+        Diagnostics.info(DiagCategory.STRUCTURE, null, () -> "Compiled upgrade " + from.getStructure() + " -> " + to.getStructure()
+            + ": " + steps.size() + " steps (" + removed + " removals) instead of " + to.size());
+        
+        return toBlueprint(to.getStructure(), from.getStructure(), to.getRotation(), to.getMirror(), palette, steps);
+    }
+    
+    /**
+     * Sorts the steps by priority and build order and packs them into a blueprint.
+     */
+    private static Blueprint toBlueprint(ResourceLocation structurePath, @Nullable ResourceLocation upgradeFrom,
+                                         Rotation rotation, Mirror mirror, List<BlockState> palette, List<long[]> steps) {
+        // Sort steps by priority (higher first)
+        steps.sort((a, b) -> Long.compare(b[2], a[2]));
         
-        return task;
+        long[] offsets = new long[steps.size()];
+        int[] stateIndices = new int[steps.size()];
+        byte[] priorities = new byte[steps.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            long[] step = steps.get(i);
+            offsets[i] = step[0];
+            stateIndices[i] = (int) step[1];
+            priorities[i] = (byte) step[2];
+        }
+        // Within each priority, build layer by layer in a serpentine sweep to keep walking short
+        BuildOrder.sortBands(offsets, stateIndices, priorities, offsets.length);
+        
+        Diagnostics.debug(DiagCategory.STRUCTURE, null, () -> {
+            double[] travel = BuildOrder.estimateTravel(offsets, offsets.length, com.nothomealone.Config.builderReach);
+            return "Build order of " + structurePath + ": " + (int) travel[0] + " standing positions, "
+                + String.format("%.1f", travel[1]) + " blocks walked";
+        });
+        
+        return new Blueprint(structurePath, upgradeFrom, rotation, mirror, palette.toArray(new BlockState[0]),
+            offsets, stateIndices, priorities);
+    }
+    
+    private static int indexOf(BlockState state, List<BlockState> palette, Map<BlockState, Integer> paletteIndex) {
+        Integer index = paletteIndex.get(state);
+        if (index == null) {
+            index = palette.size();
+            palette.add(state);
+            paletteIndex.put(state, index);
+        }
+        return index;
     }
     
     /**
@@ -0,0 +1,280 @@
+package com.nothomealone.structure;
+
+import com.nothomealone.NotHomeAlone;
+import com.nothomealone.block.entity.StationBlockEntity;
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
+import com.nothomealone.entity.WorkerRegistry;
+import com.nothomealone.entity.custom.BuilderEntity;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Mirror;
+import net.minecraft.world.level.block.Rotation;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.ExplosionEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Watches finished structures for damage and has their builders repair it.
+ * Every block of a finished structure is indexed per dimension by position, and block break,
+ * explosion and place events look the position up to queue damaged blocks on their structure.
+ * Queued damage is handed to the structure's builder as a small repair task once it is idle.
+ * Untouched structures cost nothing: there is no polling, only one lookup per block event.
+ * Damage done while a structure was not loaded is found by a {@link BuildSiteDiff} when it is tracked again.
+ */
+@Mod.EventBusSubscriber(modid = NotHomeAlone.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class StructureDamageTracker {
+    // Damaged structures are handed to their builders at most once per REPAIR_INTERVAL ticks
+    private static final int REPAIR_INTERVAL = 20;
+
+    private static final Map<ResourceKey<Level>, DimensionIndex> dimensions = new HashMap<>();
+    private static int tickCounter = 0;
+
+    /**
+     * Finished structures of one dimension and the blocks they own.
+     */
+    private static class DimensionIndex {
+        final Long2ObjectOpenHashMap<TrackedStructure> byPos = new Long2ObjectOpenHashMap<>();
+        final Map<BlockPos, TrackedStructure> byStation = new HashMap<>();
+        // Structures with damage that is not handed to their builder yet
+        final Set<TrackedStructure> damaged = new LinkedHashSet<>();
+    }
+
+    /**
+     * A finished structure, placed by its blueprint at its station.
+     */
+    private static class TrackedStructure {
+        final BlockPos stationPos;
+        final Blueprint blueprint;
+        final LongLinkedOpenHashSet damagedPositions = new LongLinkedOpenHashSet();
+        // Blueprint step of each position, built on first damage
+        Long2IntOpenHashMap stepByPos;
+
+        TrackedStructure(BlockPos stationPos, Blueprint blueprint) {
+            this.stationPos = stationPos;
+            this.blueprint = blueprint;
+        }
+
+        long positionOf(int step) {
+            long offset = blueprint.getOffset(step);
+            return BlockPos.asLong(stationPos.getX() + BlockPos.getX(offset),
+                stationPos.getY() + BlockPos.getY(offset),
+                stationPos.getZ() + BlockPos.getZ(offset));
+        }
+
+        int stepAt(long pos) {
+            if (stepByPos == null) {
+                stepByPos = new Long2IntOpenHashMap(blueprint.size());
+                stepByPos.defaultReturnValue(-1);
+                for (int i = 0; i < blueprint.size(); i++) {
+                    stepByPos.put(positionOf(i), i);
+                }
+            }
+            return stepByPos.get(pos);
+        }
+    }
+
+    /**
+     * Starts watching the finished structure of a station. The blueprint is loaded in the background,
+     * then the structure is indexed on the server thread and compared once with the world.
+     */
+    public static void track(ServerLevel level, BlockPos stationPos, ResourceLocation structure) {
+        DimensionIndex index = dimensions.get(level.dimension());
+        if (index != null && index.byStation.containsKey(stationPos)) return;
+
+        BlockPos station = stationPos.immutable();
+        BlueprintCache.getAsync(level, structure, Rotation.NONE, Mirror.NONE).thenAcceptAsync(blueprint -> {
+            if (blueprint == null || !level.getServer().isRunning()) return;
+            // The station may have been removed, unloaded or changed while the blueprint was loading
+            if (!level.isLoaded(station)) return;
+            if (!(level.getBlockEntity(station) instanceof StationBlockEntity stationEntity)
+                || stationEntity.isRemoved() || !stationEntity.isStructureBuilt()) return;
+            register(level, station, blueprint);
+        }, level.getServer());
+    }
+
+    private static void register(ServerLevel level, BlockPos stationPos, Blueprint blueprint) {
+        DimensionIndex index = dimensions.computeIfAbsent(level.dimension(), d -> new DimensionIndex());
+        if (index.byStation.containsKey(stationPos)) return;
+
+        TrackedStructure structure = new TrackedStructure(stationPos, blueprint);
+        index.byStation.put(stationPos, structure);
+        for (int i = 0; i < blueprint.size(); i++) {
+            // Overlapping structures: the first one keeps the block
+            index.byPos.putIfAbsent(structure.positionOf(i), structure);
+        }
+
+        // Catch damage done while the structure was not tracked
+        BuildTask full = blueprint.createTask(stationPos);
+        BuildSiteDiff diff = BuildSiteDiff.compute(level, full);
+        for (int i = 0; i < full.getTotalSteps(); i++) {
+            if (diff.getStepClass(i) != BuildSiteDiff.SATISFIED) {
+                structure.damagedPositions.add(full.getStepPos(i));
+            }
+        }
+        if (!structure.damagedPositions.isEmpty()) {
+            index.damaged.add(structure);
+        }
+        Diagnostics.info(DiagCategory.STRUCTURE, null, () -> "Tracking " + blueprint.getStructure() + " at " + stationPos
+            + " (" + blueprint.size() + " blocks, " + structure.damagedPositions.size() + " damaged)");
+    }
+
+    /**
+     * Stops watching the structure of a station (station removed, unloaded or not finished any more).
+     */
+    public static void untrack(Level level, BlockPos stationPos) {
+        DimensionIndex index = dimensions.get(level.dimension());
+        if (index == null) return;
+        TrackedStructure structure = index.byStation.remove(stationPos);
+        if (structure == null) return;
+
+        for (int i = 0; i < structure.blueprint.size(); i++) {
+            index.byPos.remove(structure.positionOf(i), structure);
+        }
+        index.damaged.remove(structure);
+        if (index.byStation.isEmpty()) {
+            dimensions.remove(level.dimension());
+        }
+    }
+
+    /**
+     * Queues a position for repair if it belongs to a finished structure.
+     */
+    private static void markDamaged(Level level, BlockPos pos) {
+        DimensionIndex index = dimensions.get(level.dimension());
+        if (index == null) return;
+        TrackedStructure structure = index.byPos.get(pos.asLong());
+        if (structure == null) return;
+
+        if (structure.damagedPositions.add(pos.asLong())) {
+            index.damaged.add(structure);
+            Diagnostics.debug(DiagCategory.STRUCTURE, null, () -> "Structure at " + structure.stationPos + " damaged at " + pos);
+        }
+    }
+
+    /**
+     * Updates the queue after a block was placed into a structure position: the right block repairs
+     * the position, any other block damages it.
+     */
+    private static void onPlacedInStructure(Level level, BlockPos pos, BlockState placed) {
+        DimensionIndex index = dimensions.get(level.dimension());
+        if (index == null) return;
+        TrackedStructure structure = index.byPos.get(pos.asLong());
+        if (structure == null) return;
+
+        int step = structure.stepAt(pos.asLong());
+        if (step < 0) return;
+        BlockState required = structure.blueprint.getState(step);
+        if (placed.is(required.getBlock()) || BlockCompatibility.areCompatible(placed.getBlock(), required.getBlock())) {
+            structure.damagedPositions.remove(pos.asLong());
+            if (structure.damagedPositions.isEmpty()) {
+                index.damaged.remove(structure);
+            }
+        } else {
+            markDamaged(level, pos);
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onBlockBreak(BlockEvent.BreakEvent event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            markDamaged(level, event.getPos());
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onEntityPlace(BlockEvent.EntityPlaceEvent event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            onPlacedInStructure(level, event.getPos(), event.getPlacedBlock());
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onExplosion(ExplosionEvent.Detonate event) {
+        if (!(event.getLevel() instanceof ServerLevel level)) return;
+        if (!dimensions.containsKey(level.dimension())) return;
+        for (BlockPos pos : event.getAffectedBlocks()) {
+            markDamaged(level, pos);
+        }
+    }
+
+    /**
+     * Hands queued damage to idle builders. Does nothing while no tracked structure is damaged.
+     */
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+        tickCounter = (tickCounter + 1) % REPAIR_INTERVAL;
+        if (tickCounter != 0) return;
+
+        for (Map.Entry<ResourceKey<Level>, DimensionIndex> entry : dimensions.entrySet()) {
+            DimensionIndex index = entry.getValue();
+            if (index.damaged.isEmpty()) continue;
+            ServerLevel level = event.getServer().getLevel(entry.getKey());
+            if (level == null) continue;
+
+            Iterator<TrackedStructure> iterator = index.damaged.iterator();
+            while (iterator.hasNext()) {
+                if (dispatchRepair(level, iterator.next())) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives the queued damage of a structure to its builder as a repair task.
+     * @return true if the damage was handed over (or turned out to be repaired already)
+     */
+    private static boolean dispatchRepair(ServerLevel level, TrackedStructure structure) {
+        if (!level.isLoaded(structure.stationPos)) return false;
+        BuilderEntity builder = WorkerRegistry.getWorker(level, structure.stationPos, BuilderEntity.class);
+        if (builder == null) return false;
+        // Wait until the builder is done with what it is doing
+        BuildTask current = builder.getCurrentTask();
+        if (current != null && !current.isCompleted()) return false;
+
+        BitSet steps = new BitSet(structure.blueprint.size());
+        LongIterator damaged = structure.damagedPositions.iterator();
+        while (damaged.hasNext()) {
+            int step = structure.stepAt(damaged.nextLong());
+            if (step >= 0) {
+                steps.set(step);
+            }
+        }
+        structure.damagedPositions.clear();
+
+        // Blueprint order, so supporting blocks are repaired first; positions repaired meanwhile are dropped
+        BuildTask repair = BuildSiteDiff.compute(level, structure.blueprint.createTask(structure.stationPos).subset(steps)).toDeltaTask();
+        if (repair.getTotalSteps() == 0) return true;
+
+        builder.setBuildTask(repair);
+        Diagnostics.info(DiagCategory.TASKS, builder, () -> "Repairing " + repair.getTotalSteps() + " blocks of structure at " + structure.stationPos);
+        return true;
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        dimensions.clear();
+        tickCounter = 0;
+    }
+}
@@ -5,11 +5,12 @@ import net.minecraft.world.level.Level;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Helper class to find and manage all stations in a settlement.
  * Used by Builder and Storage NPCs to locate other stations.
+ * Range and nearest queries go through the station grids of {@link TerritoryManager},
+ * so they only look at stations near the queried position.
  */
 public class SettlementHelper {
     
@@ -19,11 +20,11 @@ public class SettlementHelper {
      * @return List of all station center positions
      */
     public static List<BlockPos> getAllStations(Level level) {
-        String dimension = level.dimension().location().toString();
-        return TerritoryManager.getAllTerritories().stream()
-                .filter(t -> t.dimension().equals(dimension))
-                .map(Territory::center)
-                .collect(Collectors.toList());
+        List<BlockPos> stations = new ArrayList<>(TerritoryManager.getTerritoryCount(level));
+        for (Territory territory : TerritoryManager.getTerritories(level)) {
+            stations.add(territory.center());
+        }
+        return stations;
     }
     
     /**
@@ -34,29 +35,20 @@ public class SettlementHelper {
      * @return List of station positions within range
      */
     public static List<BlockPos> getStationsInRange(Level level, BlockPos center, double maxDistance) {
-        String dimension = level.dimension().location().toString();
-        double maxDistSqr = maxDistance * maxDistance;
-        
-        return TerritoryManager.getAllTerritories().stream()
-                .filter(t -> t.dimension().equals(dimension))
-                .filter(t -> t.center().distSqr(center) <= maxDistSqr)
-                .map(Territory::center)
-                .collect(Collectors.toList());
+        List<BlockPos> stations = new ArrayList<>();
+        TerritoryManager.forEachStationInRange(level, center, maxDistance, stations::add);
+        return stations;
     }
     
     /**
      * Finds the nearest station of a specific type.
      * @param level The level
      * @param fromPos Starting position
-     * @param workerType The worker type to find (e.g., "storage", "builder")
+     * @param workerType The worker type to find (e.g., "storage", "builder"), or "any"
      * @return The nearest station position, or null if none found
      */
     public static BlockPos findNearestStation(Level level, BlockPos fromPos, String workerType) {
-        // For now, just return nearest station
-        // Later: can filter by block type/worker type
-        return getStationsInRange(level, fromPos, 256).stream()
-                .min((a, b) -> Double.compare(fromPos.distSqr(a), fromPos.distSqr(b)))
-                .orElse(null);
+        return TerritoryManager.findNearestStation(level, fromPos, workerType, 256);
     }
     
     /**
@@ -64,17 +56,9 @@ public class SettlementHelper {
      * These NPCs need to be able to reach all other stations.
      */
     public static boolean canReachAllStations(Level level, BlockPos builderStation, int workRadius) {
-        List<BlockPos> allStations = getAllStations(level);
-        double maxDistSqr = workRadius * workRadius;
-        
-        for (BlockPos station : allStations) {
-            if (station.equals(builderStation)) continue;
-            
-            if (builderStation.distSqr(station) > maxDistSqr) {
-                return false;
-            }
-        }
-        return true;
+        // The station itself is in range of itself, so every station is reachable when all are in range
+        return TerritoryManager.countStationsInRange(level, builderStation, workRadius)
+                == TerritoryManager.getTerritoryCount(level);
     }
     
     /**
@@ -82,10 +66,10 @@ public class SettlementHelper {
      */
     public static List<BlockPos> getUnreachableStations(Level level, BlockPos builderStation, int workRadius) {
         List<BlockPos> unreachable = new ArrayList<>();
-        List<BlockPos> allStations = getAllStations(level);
         double maxDistSqr = workRadius * workRadius;
         
-        for (BlockPos station : allStations) {
+        for (Territory territory : TerritoryManager.getTerritories(level)) {
+            BlockPos station = territory.center();
             if (station.equals(builderStation)) continue;
             
             if (builderStation.distSqr(station) > maxDistSqr) {
@@ -0,0 +1,118 @@
+package com.nothomealone.territory;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Uniform grid of station centers (64x64 block columns).
+ * Range queries only visit the cells the range touches, and nearest queries search rings of cells
+ * outward from the query position and stop as soon as no closer station can be found.
+ */
+class StationGrid {
+    private static final int CELL_SHIFT = 6;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    private final Map<Long, List<BlockPos>> cells = new HashMap<>();
+    private int size;
+
+    void add(BlockPos center) {
+        cells.computeIfAbsent(cellOf(center), k -> new ArrayList<>(2)).add(center);
+        size++;
+    }
+
+    void remove(BlockPos center) {
+        long key = cellOf(center);
+        List<BlockPos> cell = cells.get(key);
+        if (cell != null && cell.remove(center)) {
+            size--;
+            if (cell.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Calls the consumer for every station within {@code maxDistance} of {@code from}.
+     */
+    void forEachInRange(BlockPos from, double maxDistance, Consumer<BlockPos> consumer) {
+        double maxDistSqr = maxDistance * maxDistance;
+        int reach = (int) Math.ceil(maxDistance);
+        for (int cx = (from.getX() - reach) >> CELL_SHIFT; cx <= (from.getX() + reach) >> CELL_SHIFT; cx++) {
+            for (int cz = (from.getZ() - reach) >> CELL_SHIFT; cz <= (from.getZ() + reach) >> CELL_SHIFT; cz++) {
+                List<BlockPos> cell = cells.get(ChunkPos.asLong(cx, cz));
+                if (cell == null) {
+                    continue;
+                }
+                for (BlockPos center : cell) {
+                    if (center.distSqr(from) <= maxDistSqr) {
+                        consumer.accept(center);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the stations within {@code maxDistance} of {@code from}.
+     */
+    int countInRange(BlockPos from, double maxDistance) {
+        int[] count = new int[1];
+        forEachInRange(from, maxDistance, center -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Finds the station closest to {@code from}, no further than {@code maxDistance}.
+     * @return The station center, or null if there is none in range
+     */
+    BlockPos findNearest(BlockPos from, double maxDistance) {
+        if (size == 0) {
+            return null;
+        }
+
+        int fromCellX = from.getX() >> CELL_SHIFT;
+        int fromCellZ = from.getZ() >> CELL_SHIFT;
+        int maxRing = (int) Math.ceil(maxDistance / CELL_SIZE) + 1;
+        BlockPos nearest = null;
+        double nearestDistSqr = maxDistance * maxDistance;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Everything in this ring is at least (ring - 1) cells away from the query position
+            double ringDistance = (double) Math.max(0, ring - 1) * CELL_SIZE;
+            if (ringDistance * ringDistance > nearestDistSqr) {
+                break;
+            }
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dz = -ring; dz <= ring; dz++) {
+                    // Only the cells on the ring's edge
+                    if (Math.max(Math.abs(dx), Math.abs(dz)) != ring) continue;
+                    List<BlockPos> cell = cells.get(ChunkPos.asLong(fromCellX + dx, fromCellZ + dz));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (BlockPos center : cell) {
+                        double distSqr = center.distSqr(from);
+                        if (distSqr <= nearestDistSqr) {
+                            nearest = center;
+                            nearestDistSqr = distSqr;
+                        }
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    private static long cellOf(BlockPos pos) {
+        return ChunkPos.asLong(pos.getX() >> CELL_SHIFT, pos.getZ() >> CELL_SHIFT);
+    }
+}
@@ -6,9 +6,14 @@ import net.minecraft.core.BlockPos;
  * Represents a claimed territory for a worker station.
  * territoryRadius: The radius of the claimed area (where no other stations can be placed)
  * workRadius: The radius where the NPC can actually work (larger than territory)
+ * workerType: The worker type of the station (e.g. "builder"), empty for claims saved before it was recorded
  */
 public record Territory(String dimension, BlockPos center, BlockPos min, BlockPos max, 
-                        int territoryRadius, int workRadius) {
+                        int territoryRadius, int workRadius, String workerType) {
+    /**
+     * Worker type that matches stations of every type in queries.
+     */
+    public static final String ANY_WORKER = "any";
     
     /**
      * Gets the minimum position of the work area (larger than territory).
@@ -0,0 +1,153 @@
+package com.nothomealone.territory;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial index of the territories of a single dimension.
+ * Every territory is bucketed into each chunk column its claim box touches,
+ * so point and box queries only look at the few claims near the queried area.
+ * Station centers are also kept in a {@link StationGrid} for all stations and one per worker type,
+ * for the range and nearest station queries of the settlement.
+ */
+class TerritoryIndex {
+    private final Map<Long, List<Territory>> cells = new HashMap<>();
+    private final Map<BlockPos, Territory> byCenter = new HashMap<>();
+    private final StationGrid stations = new StationGrid();
+    private final Map<String, StationGrid> stationsByType = new HashMap<>();
+
+    /**
+     * Adds a territory to the index (replacing any claim with the same center).
+     */
+    void add(Territory territory) {
+        remove(territory.center());
+        byCenter.put(territory.center(), territory);
+        stations.add(territory.center());
+        stationsByType.computeIfAbsent(territory.workerType(), t -> new StationGrid()).add(territory.center());
+
+        BlockPos min = territory.min();
+        BlockPos max = territory.max();
+        for (int cx = min.getX() >> 4; cx <= max.getX() >> 4; cx++) {
+            for (int cz = min.getZ() >> 4; cz <= max.getZ() >> 4; cz++) {
+                cells.computeIfAbsent(ChunkPos.asLong(cx, cz), k -> new ArrayList<>(2)).add(territory);
+            }
+        }
+    }
+
+    /**
+     * Removes the territory centered at the given position.
+     * @return The removed territory, or null if there was none
+     */
+    Territory remove(BlockPos center) {
+        Territory territory = byCenter.remove(center);
+        if (territory == null) {
+            return null;
+        }
+        stations.remove(center);
+        StationGrid typeGrid = stationsByType.get(territory.workerType());
+        if (typeGrid != null) {
+            typeGrid.remove(center);
+            if (typeGrid.size() == 0) {
+                stationsByType.remove(territory.workerType());
+            }
+        }
+
+        BlockPos min = territory.min();
+        BlockPos max = territory.max();
+        for (int cx = min.getX() >> 4; cx <= max.getX() >> 4; cx++) {
+            for (int cz = min.getZ() >> 4; cz <= max.getZ() >> 4; cz++) {
+                long key = ChunkPos.asLong(cx, cz);
+                List<Territory> bucket = cells.get(key);
+                if (bucket != null) {
+                    bucket.remove(territory);
+                    if (bucket.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+        return territory;
+    }
+
+    /**
+     * Gets the territory centered exactly at the given position.
+     */
+    Territory getByCenter(BlockPos center) {
+        return byCenter.get(center);
+    }
+
+    /**
+     * Gets the territory containing the given position (only the position's chunk is checked).
+     */
+    Territory getAt(BlockPos pos) {
+        List<Territory> bucket = cells.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+        if (bucket == null) {
+            return null;
+        }
+        for (Territory territory : bucket) {
+            if (contains(territory.min(), territory.max(), pos)) {
+                return territory;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if any territory overlaps the given box (only chunks touched by the box are checked).
+     */
+    boolean overlaps(BlockPos min, BlockPos max) {
+        for (int cx = min.getX() >> 4; cx <= max.getX() >> 4; cx++) {
+            for (int cz = min.getZ() >> 4; cz <= max.getZ() >> 4; cz++) {
+                List<Territory> bucket = cells.get(ChunkPos.asLong(cx, cz));
+                if (bucket == null) {
+                    continue;
+                }
+                for (Territory territory : bucket) {
+                    if (boxesOverlap(min, max, territory.min(), territory.max())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the station grid of a worker type, or of all stations for {@link Territory#ANY_WORKER}.
+     * @return The grid, or null if there is no station of the type
+     */
+    StationGrid stations(String workerType) {
+        return Territory.ANY_WORKER.equals(workerType) ? stations : stationsByType.get(workerType);
+    }
+
+    Collection<Territory> all() {
+        return Collections.unmodifiableCollection(byCenter.values());
+    }
+
+    int size() {
+        return byCenter.size();
+    }
+
+    boolean isEmpty() {
+        return byCenter.isEmpty();
+    }
+
+    static boolean boxesOverlap(BlockPos min1, BlockPos max1, BlockPos min2, BlockPos max2) {
+        return min1.getX() <= max2.getX() && max1.getX() >= min2.getX() &&
+               min1.getY() <= max2.getY() && max1.getY() >= min2.getY() &&
+               min1.getZ() <= max2.getZ() && max1.getZ() >= min2.getZ();
+    }
+
+    static boolean contains(BlockPos min, BlockPos max, BlockPos pos) {
+        return pos.getX() >= min.getX() && pos.getX() <= max.getX() &&
+               pos.getY() >= min.getY() && pos.getY() <= max.getY() &&
+               pos.getZ() >= min.getZ() && pos.getZ() <= max.getZ();
+    }
+}
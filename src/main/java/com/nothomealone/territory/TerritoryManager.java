@@ -1,26 +1,48 @@
 package com.nothomealone.territory;
 
+import com.nothomealone.NotHomeAlone;
 import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.Level;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Manages territory claims for worker stations.
  * Prevents overlapping territories.
+ * Claims are kept in a chunk-bucketed spatial index per dimension (see {@link TerritoryIndex})
+ * and persisted through {@link TerritoryStorage}. A dimension's claims are loaded the first
+ * time the dimension is queried.
+ * Claims only exist on the server: on a client level every query sees no claims and nothing can be claimed.
  */
+@Mod.EventBusSubscriber(modid = NotHomeAlone.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public class TerritoryManager {
-    private static final List<Territory> territories = new ArrayList<>();
+    private static final Map<String, TerritoryIndex> territories = new HashMap<>();
+    // Returned for client levels, which never hold claims; never added to
+    private static final TerritoryIndex NO_CLAIMS = new TerritoryIndex();
 
     /**
      * Attempts to claim a territory around the given position.
      * @param center The center position (station block)
+     * @param workerType The worker type of the station (e.g. "builder")
      * @param territoryRadius The radius of the claimed area (prevents other stations)
      * @param workRadius The radius where the NPC can work
-     * @return The claimed Territory, or null if the area overlaps with existing territories
+     * @return The claimed Territory, or null if the area overlaps with existing territories or the level is a client level
      */
-    public static Territory claimTerritory(Level level, BlockPos center, int territoryRadius, int workRadius) {
+    public static Territory claimTerritory(Level level, BlockPos center, String workerType, int territoryRadius, int workRadius) {
+        if (!(level instanceof ServerLevel serverLevel)) {
+            return null;
+        }
+
         BlockPos min = center.offset(-territoryRadius, -territoryRadius, -territoryRadius);
         BlockPos max = center.offset(territoryRadius, territoryRadius, territoryRadius);
 
@@ -29,9 +51,10 @@ public class TerritoryManager {
             return null;
         }
 
-        Territory territory = new Territory(level.dimension().location().toString(), center, min, max, 
-                                           territoryRadius, workRadius);
-        territories.add(territory);
+        Territory territory = new Territory(level.dimension().location().toString(), center, min, max,
+                                           territoryRadius, workRadius, workerType);
+        indexFor(level).add(territory);
+        TerritoryStorage.save(serverLevel, territory);
         return territory;
     }
 
@@ -39,64 +62,111 @@ public class TerritoryManager {
      * Checks if any part of the given area is already claimed.
      */
     public static boolean isAreaClaimed(Level level, BlockPos min, BlockPos max) {
-        String dimension = level.dimension().location().toString();
-        
-        for (Territory territory : territories) {
-            if (!territory.dimension().equals(dimension)) {
-                continue;
-            }
-
-            // Check for overlap
-            if (boxesOverlap(min, max, territory.min(), territory.max())) {
-                return true;
-            }
-        }
-        return false;
+        return indexFor(level).overlaps(min, max);
     }
 
     /**
      * Releases a territory claim.
      */
     public static void releaseTerritory(Level level, BlockPos center) {
-        String dimension = level.dimension().location().toString();
-        territories.removeIf(t -> t.dimension().equals(dimension) && t.center().equals(center));
+        if (indexFor(level).remove(center) != null && level instanceof ServerLevel serverLevel) {
+            TerritoryStorage.remove(serverLevel, center);
+        }
     }
 
     /**
      * Gets the territory at a specific position.
      */
     public static Territory getTerritoryAt(Level level, BlockPos pos) {
-        String dimension = level.dimension().location().toString();
-        
-        for (Territory territory : territories) {
-            if (!territory.dimension().equals(dimension)) {
-                continue;
-            }
+        return indexFor(level).getAt(pos);
+    }
 
-            if (isPositionInTerritory(pos, territory.min(), territory.max())) {
-                return territory;
-            }
-        }
-        return null;
+    /**
+     * Gets all territories of the level's dimension (read-only view, not a copy).
+     */
+    public static Collection<Territory> getTerritories(Level level) {
+        return indexFor(level).all();
+    }
+
+    /**
+     * Calls the consumer for every station of the level's dimension within {@code maxDistance} of a position.
+     */
+    public static void forEachStationInRange(Level level, BlockPos from, double maxDistance, Consumer<BlockPos> consumer) {
+        indexFor(level).stations(Territory.ANY_WORKER).forEachInRange(from, maxDistance, consumer);
+    }
+
+    /**
+     * Counts the stations of the level's dimension within {@code maxDistance} of a position.
+     */
+    public static int countStationsInRange(Level level, BlockPos from, double maxDistance) {
+        return indexFor(level).stations(Territory.ANY_WORKER).countInRange(from, maxDistance);
+    }
+
+    /**
+     * Finds the station of a worker type closest to a position.
+     * @param workerType The worker type, or {@link Territory#ANY_WORKER} for stations of any type
+     * @return The station center, or null if there is no such station within {@code maxDistance}
+     */
+    public static BlockPos findNearestStation(Level level, BlockPos from, String workerType, double maxDistance) {
+        StationGrid stations = indexFor(level).stations(workerType);
+        return stations == null ? null : stations.findNearest(from, maxDistance);
     }
 
-    private static boolean boxesOverlap(BlockPos min1, BlockPos max1, BlockPos min2, BlockPos max2) {
-        return min1.getX() <= max2.getX() && max1.getX() >= min2.getX() &&
-               min1.getY() <= max2.getY() && max1.getY() >= min2.getY() &&
-               min1.getZ() <= max2.getZ() && max1.getZ() >= min2.getZ();
+    /**
+     * Gets the number of territories of the level's dimension.
+     */
+    public static int getTerritoryCount(Level level) {
+        return indexFor(level).size();
     }
 
-    private static boolean isPositionInTerritory(BlockPos pos, BlockPos min, BlockPos max) {
-        return pos.getX() >= min.getX() && pos.getX() <= max.getX() &&
-               pos.getY() >= min.getY() && pos.getY() <= max.getY() &&
-               pos.getZ() >= min.getZ() && pos.getZ() <= max.getZ();
+    /**
+     * Gets the index of the level's dimension, loading its stored claims on first use.
+     * Client levels get an empty index.
+     */
+    private static TerritoryIndex indexFor(Level level) {
+        if (!(level instanceof ServerLevel)) {
+            return NO_CLAIMS;
+        }
+
+        String dimension = level.dimension().location().toString();
+        TerritoryIndex index = territories.get(dimension);
+        if (index == null) {
+            index = new TerritoryIndex();
+            territories.put(dimension, index);
+            for (Territory territory : TerritoryStorage.loadAll((ServerLevel) level)) {
+                index.add(territory);
+            }
+        }
+        return index;
     }
 
     public static List<Territory> getAllTerritories() {
-        return new ArrayList<>(territories);
+        List<Territory> all = new ArrayList<>();
+        for (TerritoryIndex index : territories.values()) {
+            all.addAll(index.all());
+        }
+        return all;
     }
 
     public static void clearAll() {
         territories.clear();
     }
+
+    /**
+     * Drops the in-memory claims of an unloaded dimension; they are read back from disk on next use.
+     */
+    @SubscribeEvent
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            territories.remove(serverLevel.dimension().location().toString());
+        }
+    }
+
+    /**
+     * Forgets all claims when the server stops so the next world starts clean.
+     */
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        clearAll();
+    }
 }
@@ -0,0 +1,201 @@
+package com.nothomealone.territory;
+
+import com.nothomealone.diagnostics.DiagCategory;
+import com.nothomealone.diagnostics.Diagnostics;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.dimension.DimensionType;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.storage.DimensionDataStorage;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persists territory claims in the dimension's data folder.
+ * Claims are split into 512x512 regions, each stored in its own SavedData file,
+ * so an autosave only rewrites the regions whose claims actually changed.
+ * A small manifest per dimension lists which region files exist.
+ * A region whose last claim is released is dropped from the manifest and its file is deleted.
+ */
+public class TerritoryStorage {
+    private static final String MANIFEST_NAME = "nothomealone_territories";
+    private static final int REGION_SHIFT = 9; // 512 blocks per region
+
+    /**
+     * Loads all stored territories of the given dimension.
+     */
+    public static List<Territory> loadAll(ServerLevel level) {
+        List<Territory> loaded = new ArrayList<>();
+        String dimension = level.dimension().location().toString();
+        DimensionDataStorage storage = level.getDataStorage();
+
+        for (long region : manifest(level).regions) {
+            RegionData data = storage.get(tag -> RegionData.load(tag, dimension), regionName(region));
+            if (data != null) {
+                loaded.addAll(data.territories.values());
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Stores a newly claimed territory and marks its region dirty.
+     */
+    public static void save(ServerLevel level, Territory territory) {
+        long region = regionOf(territory.center());
+        region(level, region).put(territory);
+
+        Manifest manifest = manifest(level);
+        if (manifest.regions.add(region)) {
+            manifest.setDirty();
+        }
+    }
+
+    /**
+     * Removes a released territory and marks its region dirty, or deletes the region if it is now empty.
+     */
+    public static void remove(ServerLevel level, BlockPos center) {
+        long region = regionOf(center);
+        Manifest manifest = manifest(level);
+        if (!manifest.regions.contains(region)) {
+            return;
+        }
+
+        RegionData data = region(level, region);
+        data.remove(center);
+        if (data.territories.isEmpty()) {
+            manifest.regions.remove(region);
+            manifest.setDirty();
+            // Nothing left to write; the stale file would otherwise come back with the next claim in this region
+            data.setDirty(false);
+            deleteRegionFile(level, region);
+        }
+    }
+
+    private static void deleteRegionFile(ServerLevel level, long region) {
+        Path dataFolder = DimensionType.getStorageFolder(level.dimension(),
+                level.getServer().getWorldPath(LevelResource.ROOT)).resolve("data");
+        Path file = dataFolder.resolve(regionName(region) + ".dat");
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            Diagnostics.warn(DiagCategory.TERRITORY, null, () -> "Could not delete empty territory region " + file, e);
+        }
+    }
+
+    private static Manifest manifest(ServerLevel level) {
+        return level.getDataStorage().computeIfAbsent(Manifest::load, Manifest::new, MANIFEST_NAME);
+    }
+
+    private static RegionData region(ServerLevel level, long region) {
+        String dimension = level.dimension().location().toString();
+        return level.getDataStorage().computeIfAbsent(tag -> RegionData.load(tag, dimension),
+                RegionData::new, regionName(region));
+    }
+
+    private static long regionOf(BlockPos pos) {
+        return BlockPos.asLong(pos.getX() >> REGION_SHIFT, 0, pos.getZ() >> REGION_SHIFT);
+    }
+
+    private static String regionName(long region) {
+        return MANIFEST_NAME + "_r." + BlockPos.getX(region) + "." + BlockPos.getZ(region);
+    }
+
+    /**
+     * Lists the regions of a dimension that contain at least one claim.
+     */
+    private static class Manifest extends SavedData {
+        private final Set<Long> regions = new HashSet<>();
+
+        static Manifest load(CompoundTag tag) {
+            Manifest manifest = new Manifest();
+            for (long region : tag.getLongArray("Regions")) {
+                manifest.regions.add(region);
+            }
+            return manifest;
+        }
+
+        @Override
+        public CompoundTag save(CompoundTag tag) {
+            long[] packed = new long[regions.size()];
+            int i = 0;
+            for (long region : regions) {
+                packed[i++] = region;
+            }
+            tag.put("Regions", new LongArrayTag(packed));
+            return tag;
+        }
+    }
+
+    /**
+     * All claims whose center lies in one region.
+     */
+    private static class RegionData extends SavedData {
+        private final Map<BlockPos, Territory> territories = new LinkedHashMap<>();
+
+        static RegionData load(CompoundTag tag, String dimension) {
+            RegionData data = new RegionData();
+            ListTag list = tag.getList("Territories", Tag.TAG_COMPOUND);
+            for (int i = 0; i < list.size(); i++) {
+                Territory territory = readTerritory(list.getCompound(i), dimension);
+                data.territories.put(territory.center(), territory);
+            }
+            return data;
+        }
+
+        void put(Territory territory) {
+            territories.put(territory.center(), territory);
+            setDirty();
+        }
+
+        void remove(BlockPos center) {
+            if (territories.remove(center) != null) {
+                setDirty();
+            }
+        }
+
+        @Override
+        public CompoundTag save(CompoundTag tag) {
+            ListTag list = new ListTag();
+            for (Territory territory : territories.values()) {
+                list.add(writeTerritory(territory));
+            }
+            tag.put("Territories", list);
+            return tag;
+        }
+    }
+
+    private static CompoundTag writeTerritory(Territory territory) {
+        CompoundTag tag = new CompoundTag();
+        tag.putLong("Center", territory.center().asLong());
+        tag.putLong("Min", territory.min().asLong());
+        tag.putLong("Max", territory.max().asLong());
+        tag.putInt("TerritoryRadius", territory.territoryRadius());
+        tag.putInt("WorkRadius", territory.workRadius());
+        tag.putString("WorkerType", territory.workerType());
+        return tag;
+    }
+
+    private static Territory readTerritory(CompoundTag tag, String dimension) {
+        return new Territory(dimension,
+                BlockPos.of(tag.getLong("Center")),
+                BlockPos.of(tag.getLong("Min")),
+                BlockPos.of(tag.getLong("Max")),
+                tag.getInt("TerritoryRadius"),
+                tag.getInt("WorkRadius"),
+                tag.getString("WorkerType"));
+    }
+}